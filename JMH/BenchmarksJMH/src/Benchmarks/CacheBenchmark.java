@@ -0,0 +1,88 @@
+package Benchmarks;
+
+import SOCKET.Cache;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede leituras e gravações no {@link Cache} com várias threads ao mesmo tempo.
+ * <p>
+ * Com {@code tamanhoMaximo} menor que {@code quantidadeTickers}, as gravações de tickers
+ * ausentes passam pela remoção de entradas, e as leituras passam a ter falhas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    @Param({"1000"})
+    public int quantidadeTickers;
+
+    @Param({"1000", "500"})
+    public int tamanhoMaximo;
+
+    private Cache cache;
+    private String[] tickers;
+
+    @Setup
+    public void preparar() {
+        cache = new Cache(TimeUnit.HOURS.toMillis(1), tamanhoMaximo);
+        tickers = new String[quantidadeTickers];
+        for (int i = 0; i < quantidadeTickers; i++) {
+            tickers[i] = "TCK" + i;
+            cache.atualizarCache(tickers[i], 385_000L + i);
+        }
+    }
+
+    private String tickerAleatorio() {
+        return tickers[ThreadLocalRandom.current().nextInt(tickers.length)];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long ler() {
+        return cache.obterPrecoPontoFixo(tickerAleatorio());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String lerTexto() {
+        return cache.obterPreco(tickerAleatorio());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void gravar() {
+        cache.atualizarCache(tickerAleatorio(), 385_000L + ThreadLocalRandom.current().nextInt(100));
+    }
+
+    @Benchmark
+    @Group("misto")
+    @GroupThreads(3)
+    public long mistoLer() {
+        return cache.obterPrecoPontoFixo(tickerAleatorio());
+    }
+
+    @Benchmark
+    @Group("misto")
+    @GroupThreads(1)
+    public void mistoGravar() {
+        cache.atualizarCache(tickerAleatorio(), 385_000L + ThreadLocalRandom.current().nextInt(100));
+    }
+}
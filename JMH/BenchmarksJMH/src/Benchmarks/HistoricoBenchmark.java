@@ -0,0 +1,77 @@
+package Benchmarks;
+
+import Database.Database;
+import Database.LogPrecos;
+import SOCKET.ProtocoloBinario;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a montagem do histórico recente em {@link Database#buscarHistorico(String)}, com os
+ * registros em um {@link LogPrecos} local, e a codificação do mesmo histórico no protocolo
+ * binário.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoricoBenchmark {
+    /** Quantidade de registros do ticker medido no log. */
+    @Param({"10000"})
+    public int quantidadeRegistros;
+
+    private Path diretorio;
+    private Database database;
+    private List<String> linhas;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+
+    @Setup
+    public void preparar() throws IOException {
+        diretorio = Files.createTempDirectory("benchmark-historico");
+        LogPrecos log = new LogPrecos(diretorio, 1 << 16);
+        long inicio = System.currentTimeMillis() - quantidadeRegistros * 1_000L;
+        for (int i = 0; i < quantidadeRegistros; i++) {
+            log.salvar(i % 4 == 0 ? "PETR4" : "VALE3", 385_000L + i % 1_000, inicio + i * 1_000L);
+        }
+        database = new Database(log, 0);
+        linhas = Arrays.asList(database.buscarHistorico("PETR4").split("\n"));
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        database.fecharConexaoBanco();
+        SubstitutosLocais.apagar(diretorio);
+    }
+
+    @Benchmark
+    public String buscarHistorico() {
+        return database.buscarHistorico("PETR4");
+    }
+
+    @Benchmark
+    public int codificarHistoricoBinario() throws IOException {
+        bytes.reset();
+        ProtocoloBinario.escreverHistorico(new DataOutputStream(bytes), "PETR4", linhas);
+        return bytes.size();
+    }
+}
@@ -0,0 +1,73 @@
+package Benchmarks;
+
+import API.Cotacao;
+import API.LeitorCotacoes;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mede a extração de {@code regularMarketPrice} de respostas da brapi com o
+ * {@link LeitorCotacoes}, que lê o fluxo sem montar árvore, comparada com a leitura da
+ * árvore completa do Gson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeitorCotacoesBenchmark {
+    @Param({"1", "20"})
+    public int quantidadeTickers;
+
+    private final LeitorCotacoes leitor = new LeitorCotacoes();
+    private byte[] resposta;
+
+    @Setup
+    public void preparar() {
+        String[] tickers = new String[quantidadeTickers];
+        for (int i = 0; i < quantidadeTickers; i++) {
+            tickers[i] = "TCK" + i;
+        }
+        resposta = SubstitutosLocais.respostaBrapi(tickers).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Reader abrir() {
+        return new InputStreamReader(new ByteArrayInputStream(resposta), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Cotacao> leitorCotacoes() throws IOException {
+        return leitor.ler(abrir());
+    }
+
+    @Benchmark
+    public void arvoreGson(Blackhole buraco) {
+        JsonObject raiz = JsonParser.parseReader(abrir()).getAsJsonObject();
+        for (JsonElement item : raiz.getAsJsonArray("results")) {
+            JsonObject cotacao = item.getAsJsonObject();
+            buraco.consume(cotacao.get("symbol").getAsString());
+            buraco.consume(cotacao.get("regularMarketPrice").getAsBigDecimal());
+        }
+    }
+}
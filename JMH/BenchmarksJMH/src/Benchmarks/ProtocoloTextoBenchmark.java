@@ -0,0 +1,118 @@
+package Benchmarks;
+
+import Database.Database;
+import SOCKET.Cache;
+import SOCKET.Client;
+import SOCKET.Server;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a ida e volta do protocolo de texto entre {@link Client} e {@link Server} pela rede
+ * local, com a API e o banco de dados substituídos por {@link SubstitutosLocais}.
+ * <p>
+ * Os preços são obtidos uma vez antes da medição e ficam no cache durante todo o
+ * benchmark, de modo que o tempo medido é o do socket, da leitura do comando, do cache e da
+ * resposta. Cada thread usa a sua própria conexão.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ProtocoloTextoBenchmark {
+    private static final List<String> TICKERS = List.of("PETR4", "VALE3", "ITUB4", "BBDC4", "ABEV3");
+
+    /**
+     * O servidor, a API e o banco de dados locais, compartilhados por todas as threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Ambiente {
+        private HttpServer api;
+        private Path diretorio;
+        private Database banco;
+        private Server server;
+        private int porta;
+
+        @Setup
+        public void iniciar() throws IOException {
+            api = SubstitutosLocais.iniciarApi();
+            diretorio = Files.createTempDirectory("benchmark-protocolo");
+            int portaBanco = SubstitutosLocais.portaLivre();
+            banco = SubstitutosLocais.iniciarBanco(diretorio, portaBanco);
+            porta = SubstitutosLocais.portaLivre();
+            server = new Server(new Cache(TimeUnit.HOURS.toMillis(1), 1_000), porta, "localhost", portaBanco,
+                SubstitutosLocais.urlBase(api), "token");
+            Thread thread = new Thread(() -> {
+                try {
+                    server.iniciar();
+                } catch (IOException e) {
+                    // O socket do servidor é fechado em encerrar().
+                }
+            }, "servidor-benchmark");
+            thread.setDaemon(true);
+            thread.start();
+            SubstitutosLocais.aguardarPorta(porta);
+
+            Client aquecimento = new Client("localhost", porta);
+            aquecimento.conectar();
+            aquecimento.solicitarPrecos(TICKERS);
+            aquecimento.fechar();
+        }
+
+        @TearDown
+        public void encerrar() throws IOException {
+            server.parar();
+            banco.fecharConexaoBanco();
+            api.stop(0);
+            SubstitutosLocais.apagar(diretorio);
+        }
+    }
+
+    /**
+     * A conexão de uma thread com o servidor.
+     */
+    @State(Scope.Thread)
+    public static class Conexao {
+        private Client client;
+
+        @Setup
+        public void conectar(Ambiente ambiente) throws IOException {
+            client = new Client("localhost", ambiente.porta);
+            client.conectar();
+        }
+
+        @TearDown
+        public void fechar() {
+            client.fechar();
+        }
+    }
+
+    @Benchmark
+    public String preco(Conexao conexao) throws IOException {
+        return conexao.client.solicitarPreco("PETR4");
+    }
+
+    @Benchmark
+    public Map<String, String> precosMultiplos(Conexao conexao) throws IOException {
+        return conexao.client.solicitarPrecos(TICKERS);
+    }
+}
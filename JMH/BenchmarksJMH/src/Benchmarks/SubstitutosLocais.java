@@ -0,0 +1,164 @@
+package Benchmarks;
+
+import Database.Database;
+import Database.LogPrecos;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Substitutos locais da API de cotações e do banco de dados, para que os benchmarks meçam
+ * apenas o código do sistema, sem depender da rede, da brapi ou de um MySQL.
+ */
+public final class SubstitutosLocais {
+    /** Caminho das cotações na API substituta, no mesmo formato da brapi. */
+    public static final String CAMINHO_COTACOES = "/api/quote/";
+
+    private SubstitutosLocais() {
+    }
+
+    /**
+     * Monta uma resposta no formato da brapi para os tickers informados, com os campos que
+     * a API real envia além dos usados pelo sistema.
+     *
+     * @param tickers Os tickers da resposta.
+     * @return O corpo JSON da resposta.
+     */
+    public static String respostaBrapi(String... tickers) {
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < tickers.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"currency\":\"BRL\",\"shortName\":\"").append(tickers[i]).append(" ON\",")
+                .append("\"longName\":\"Empresa ").append(tickers[i]).append(" S.A.\",")
+                .append("\"regularMarketChange\":-0.25,\"regularMarketChangePercent\":-0.645,")
+                .append("\"regularMarketTime\":\"2024-08-23T20:07:48.000Z\",")
+                .append("\"regularMarketPrice\":").append(30 + i).append(".50,")
+                .append("\"regularMarketDayHigh\":39.12,\"regularMarketDayRange\":\"38.10 - 39.12\",")
+                .append("\"regularMarketDayLow\":38.10,\"regularMarketVolume\":31245600,")
+                .append("\"regularMarketPreviousClose\":38.75,\"regularMarketOpen\":38.80,")
+                .append("\"fiftyTwoWeekRange\":\"30.10 - 42.00\",\"fiftyTwoWeekLow\":30.10,\"fiftyTwoWeekHigh\":42.00,")
+                .append("\"symbol\":\"").append(tickers[i]).append("\",")
+                .append("\"logourl\":\"https://icons.brapi.dev/icons/").append(tickers[i]).append(".svg\",")
+                .append("\"priceEarnings\":4.21,\"earningsPerShare\":9.17}");
+        }
+        return json.append("],\"requestedAt\":\"2024-08-23T20:10:00.000Z\",\"took\":\"0ms\"}").toString();
+    }
+
+    /**
+     * Inicia uma API de cotações local, que responde a qualquer lista de tickers com
+     * {@link #respostaBrapi(String...)}.
+     *
+     * @return O servidor HTTP da API; a URL base é {@link #urlBase(HttpServer)}.
+     * @throws IOException Se não for possível abrir a porta.
+     */
+    public static HttpServer iniciarApi() throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext(CAMINHO_COTACOES, troca -> {
+            String caminho = troca.getRequestURI().getPath().substring(CAMINHO_COTACOES.length());
+            byte[] corpo = respostaBrapi(caminho.split(",")).getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().set("Content-Type", "application/json");
+            troca.sendResponseHeaders(200, corpo.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(corpo);
+            }
+        });
+        servidor.setExecutor(Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "api-local");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        servidor.start();
+        return servidor;
+    }
+
+    /**
+     * Retorna a URL base da API local, no formato esperado por {@link API.API_Client}.
+     *
+     * @param api O servidor da API local.
+     * @return A URL base.
+     */
+    public static String urlBase(HttpServer api) {
+        return "http://localhost:" + api.getAddress().getPort() + CAMINHO_COTACOES;
+    }
+
+    /**
+     * Inicia um serviço de banco de dados que grava em um {@link LogPrecos} no diretório
+     * informado, em uma thread própria.
+     *
+     * @param diretorio O diretório do log de preços.
+     * @param porta     A porta do serviço.
+     * @return O serviço de banco de dados.
+     * @throws IOException Se não for possível abrir o log ou o serviço não iniciar.
+     */
+    public static Database iniciarBanco(Path diretorio, int porta) throws IOException {
+        Database banco = new Database(new LogPrecos(diretorio, 1 << 16), porta);
+        Thread thread = new Thread(banco::iniciar, "banco-local");
+        thread.setDaemon(true);
+        thread.start();
+        aguardarPorta(porta);
+        return banco;
+    }
+
+    /**
+     * Retorna uma porta TCP livre.
+     *
+     * @return O número da porta.
+     * @throws IOException Se não for possível abrir uma porta.
+     */
+    public static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Aguarda até que um serviço local aceite conexões na porta informada.
+     *
+     * @param porta A porta do serviço.
+     * @throws IOException Se o serviço não aceitar conexões em cinco segundos.
+     */
+    public static void aguardarPorta(int porta) throws IOException {
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            try {
+                new Socket("localhost", porta).close();
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > limite) {
+                    throw new IOException("Serviço local não iniciou na porta " + porta, e);
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException interrompido) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrompido aguardando a porta " + porta, interrompido);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apaga um diretório temporário e o seu conteúdo.
+     *
+     * @param diretorio O diretório a apagar.
+     * @throws IOException Se não for possível apagar algum arquivo.
+     */
+    public static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(diretorio)) {
+            for (Path caminho : (Iterable<Path>) caminhos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(caminho);
+            }
+        }
+    }
+}
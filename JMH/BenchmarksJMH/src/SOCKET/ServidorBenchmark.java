@@ -0,0 +1,84 @@
+package SOCKET;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a interpretação das linhas do protocolo de texto e o despacho de
+ * {@link Server#processarComando(String, String)}, sem sockets.
+ * <p>
+ * Fica no pacote {@code SOCKET} porque os métodos medidos não são públicos. Os preços estão
+ * no cache e os dez preços mais recentes na série temporal, de modo que nenhum comando
+ * consulta a API ou o banco de dados; o servidor não é iniciado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ServidorBenchmark {
+    private static final String[] TICKERS = {"PETR4", "VALE3", "ITUB4", "BBDC4", "ABEV3"};
+
+    private Server server;
+
+    @Setup
+    public void preparar() {
+        Cache cache = new Cache(TimeUnit.HOURS.toMillis(1), 1_000);
+        server = new Server(cache, 0, "localhost", 1, "http://localhost:1/api/quote/", "token");
+        long agora = System.currentTimeMillis();
+        for (int i = 0; i < TICKERS.length; i++) {
+            cache.atualizarCache(TICKERS[i], 385_000L + i * 10_000L);
+            for (int j = 9; j >= 0; j--) {
+                server.getSerieTemporal().registrar(TICKERS[i], agora - j * 60_000L, 385_000L + j * 100L);
+            }
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        server.parar();
+    }
+
+    @Benchmark
+    public String preco() {
+        return server.processarEntrada("PRECO PETR4");
+    }
+
+    @Benchmark
+    public String precoMinusculo() {
+        return server.processarEntrada("preco VALE3");
+    }
+
+    @Benchmark
+    public String precosMultiplos() {
+        return server.processarEntrada("MPRECO PETR4 VALE3 ITUB4 BBDC4 ABEV3");
+    }
+
+    @Benchmark
+    public String historicoRecente() {
+        return server.processarEntrada("HISTORICO PETR4");
+    }
+
+    @Benchmark
+    public String comandoDesconhecido() {
+        return server.processarEntrada("COTACAO PETR4");
+    }
+
+    @Benchmark
+    public String despacho() {
+        return server.processarComando("PRECO", "ITUB4");
+    }
+}
@@ -1,57 +1,290 @@
-package API;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-
-/**
- * Classe responsável por fazer requisições à API de cotações de ações.
- */
-public class API_Client {
-    private String baseUrl;
-    private String token;
-
-    /**
-     * Construtor da classe API_Client.
-     * 
-     * @param baseUrl A URL base da API.
-     * @param token O token de autenticação da API.
-     */
-    public API_Client(String baseUrl, String token) {
-        this.baseUrl = baseUrl;
-        this.token = token;
-    }
-
-    /**
-     * Obtém o preço atual de uma ação a partir da API.
-     *
-     * @param ticker O código da ação a ser consultada.
-     * @return Uma string contendo a resposta JSON da API, ou {@code null} em caso de erro.
-     */
-    public String obterPrecoAcao(String ticker) {
-        try {
-            String urlStr = baseUrl + ticker + "?token=" + token;
-            URL url = new URL(urlStr);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                String inputLine;
-                StringBuilder response = new StringBuilder();
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
-                return response.toString();
-            } else {
-                System.out.println("Erro na conexão: " + responseCode);
-                return null;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-}
+package API;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+
+/**
+ * Classe responsável por fazer requisições à API de cotações de ações.
+ * <p>
+ * As cotações são obtidas de um {@link ProvedorCotacoes}: a API HTTP ({@link ProvedorHttp}),
+ * que é o padrão; a API HTTP com gravação das respostas em arquivo ({@link GravadorCotacoes});
+ * ou a reprodução de um arquivo gravado, sem rede ({@link ReprodutorCotacoes}). As consultas
+ * de cotação são assíncronas: nenhuma thread fica parada aguardando a API, e as versões
+ * síncronas apenas aguardam o resultado das assíncronas.
+ * <p>
+ * As requisições passam por um {@link DisjuntorCircuito}: depois de falhas seguidas da API
+ * (erros de rede, respostas 5xx ou 429, ou tempo esgotado), as consultas falham imediatamente,
+ * sem esperar pela API, até que uma requisição de teste funcione. Respostas a tickers
+ * inválidos não contam como falha, pois mostram que a API está respondendo.
+ * <p>
+ * As consultas são contadas nas {@link Metricas#global() métricas do processo}: requisições
+ * enviadas ({@code api.chamadas}), falhas ({@code api.erros}), consultas recusadas pelo
+ * disjuntor ({@code api.recusadas}) e o tempo de resposta ({@code api.latencia}).
+ */
+public class API_Client {
+    /** Quantidade padrão de tickers enviados em uma única requisição à API. */
+    public static final int TAMANHO_LOTE_PADRAO = 20;
+    /** Tempo máximo, em milissegundos, para estabelecer uma conexão com a API. */
+    public static final long TEMPO_CONEXAO_MS = 3_000;
+    /** Tempo máximo, em milissegundos, para receber a resposta completa da API. */
+    public static final long TEMPO_RESPOSTA_MS = 10_000;
+
+    private static final LongAdder CHAMADAS = Metricas.global().contador("api.chamadas");
+    private static final LongAdder ERROS = Metricas.global().contador("api.erros");
+    private static final LongAdder RECUSADAS = Metricas.global().contador("api.recusadas");
+    private static final Histograma LATENCIA = Metricas.global().histograma("api.latencia");
+
+    private final ProvedorCotacoes provedor;
+    private final int tamanhoLote;
+    private final DisjuntorCircuito disjuntor = new DisjuntorCircuito();
+
+    /**
+     * Construtor da classe API_Client.
+     *
+     * @param baseUrl A URL base da API.
+     * @param token O token de autenticação da API.
+     */
+    public API_Client(String baseUrl, String token) {
+        this(baseUrl, token, TAMANHO_LOTE_PADRAO);
+    }
+
+    /**
+     * Construtor da classe API_Client.
+     *
+     * @param baseUrl     A URL base da API.
+     * @param token       O token de autenticação da API.
+     * @param tamanhoLote A quantidade máxima de tickers enviados em uma única requisição.
+     */
+    public API_Client(String baseUrl, String token, int tamanhoLote) {
+        this(new ProvedorHttp(baseUrl, token), tamanhoLote);
+    }
+
+    /**
+     * Construtor da classe API_Client que obtém as cotações do provedor informado.
+     *
+     * @param provedor O provedor das cotações.
+     */
+    public API_Client(ProvedorCotacoes provedor) {
+        this(provedor, TAMANHO_LOTE_PADRAO);
+    }
+
+    /**
+     * Construtor da classe API_Client que obtém as cotações do provedor informado.
+     *
+     * @param provedor    O provedor das cotações.
+     * @param tamanhoLote A quantidade máxima de tickers enviados em uma única consulta.
+     */
+    public API_Client(ProvedorCotacoes provedor, int tamanhoLote) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser positivo");
+        }
+        this.provedor = provedor;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Obtém a resposta JSON completa da API para uma ação. Para obter o preço, prefira
+     * {@link #obterCotacao(String)}, que não guarda a resposta inteira na memória.
+     *
+     * @param ticker O código da ação a ser consultada.
+     * @return Uma string contendo a resposta JSON da API, ou {@code null} em caso de erro ou
+     *         se o provedor não fornecer a resposta completa, como na reprodução de um arquivo.
+     */
+    public String obterPrecoAcao(String ticker) {
+        long chamada = disjuntor.permitir();
+        if (chamada == DisjuntorCircuito.RECUSADA) {
+            System.out.println("API indisponível (circuito aberto); consulta de " + ticker + " recusada");
+            return null;
+        }
+        Throwable erro = null;
+        try {
+            return provedor.obterResposta(ticker);
+        } catch (IOException e) {
+            erro = e;
+            System.out.println("Erro ao consultar a API para " + ticker + ": " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            erro = e;
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (RuntimeException | Error e) {
+            erro = e;
+            throw e;
+        } finally {
+            registrarResultado(chamada, erro);
+        }
+    }
+
+    /**
+     * Obtém a cotação atual de uma ação a partir da API, aguardando a resposta.
+     *
+     * @param ticker O código da ação a ser consultada.
+     * @return A cotação, ou {@code null} em caso de erro ou se a API não retornar a ação.
+     */
+    public Cotacao obterCotacao(String ticker) {
+        try {
+            return obterPrecoAcaoAsync(ticker).join();
+        } catch (CompletionException e) {
+            System.out.println("Erro ao obter cotação de " + ticker + ": " + causa(e));
+            return null;
+        }
+    }
+
+    /**
+     * Obtém a cotação atual de uma ação a partir da API, sem bloquear a thread que chama.
+     *
+     * @param ticker O código da ação a ser consultada.
+     * @return Uma futura que é concluída com a cotação, ou com erro se a API falhar, exceder
+     *         o tempo máximo de resposta ou não retornar a ação.
+     */
+    public CompletableFuture<Cotacao> obterPrecoAcaoAsync(String ticker) {
+        return consultar(List.of(ticker.toUpperCase())).thenApply(cotacoes -> {
+            if (cotacoes.isEmpty()) {
+                throw new CompletionException(new IOException("Nenhum resultado para " + ticker));
+            }
+            return cotacoes.get(0);
+        });
+    }
+
+    /**
+     * Obtém a cotação atual de várias ações a partir da API, aguardando as respostas.
+     *
+     * @param tickers Os códigos das ações a serem consultadas.
+     * @return Um mapa do ticker (em maiúsculas) para a cotação retornada pela API. Tickers sem
+     *         resposta da API não aparecem no mapa.
+     * @see #obterCotacoesAsync(Collection)
+     */
+    public Map<String, Cotacao> obterCotacoes(Collection<String> tickers) {
+        return obterCotacoesAsync(tickers).join();
+    }
+
+    /**
+     * Obtém a cotação atual de várias ações a partir da API, sem bloquear a thread que chama.
+     * Os tickers são divididos em lotes de até {@code tamanhoLote} símbolos, e cada lote é
+     * consultado em uma única requisição. Os lotes são enviados ao mesmo tempo.
+     *
+     * @param tickers Os códigos das ações a serem consultadas.
+     * @return Uma futura que é concluída com um mapa do ticker (em maiúsculas) para a cotação
+     *         retornada pela API. Tickers de lotes que falharam, ou sem resposta da API, não
+     *         aparecem no mapa.
+     */
+    public CompletableFuture<Map<String, Cotacao>> obterCotacoesAsync(Collection<String> tickers) {
+        List<List<String>> lotes = dividirEmLotes(tickers);
+        List<CompletableFuture<List<Cotacao>>> requisicoes = new ArrayList<>(lotes.size());
+        for (List<String> lote : lotes) {
+            requisicoes.add(consultar(lote).exceptionally(erro -> {
+                System.out.println("Erro ao consultar a API para " + String.join(",", lote) + ": " + causa(erro));
+                return List.of();
+            }));
+        }
+
+        return CompletableFuture.allOf(requisicoes.toArray(new CompletableFuture<?>[0])).thenApply(nada -> {
+            Map<String, Cotacao> cotacoes = new HashMap<>();
+            for (CompletableFuture<List<Cotacao>> requisicao : requisicoes) {
+                for (Cotacao cotacao : requisicao.join()) {
+                    cotacoes.put(cotacao.getTicker(), cotacao);
+                }
+            }
+            return cotacoes;
+        });
+    }
+
+    /**
+     * Divide os tickers em lotes do tamanho aceito pela API, descartando repetições.
+     *
+     * @param tickers Os códigos das ações.
+     * @return A lista de lotes.
+     */
+    private List<List<String>> dividirEmLotes(Collection<String> tickers) {
+        Set<String> unicos = new LinkedHashSet<>();
+        for (String ticker : tickers) {
+            unicos.add(ticker.toUpperCase());
+        }
+        List<List<String>> lotes = new ArrayList<>();
+        List<String> atual = new ArrayList<>(tamanhoLote);
+        for (String ticker : unicos) {
+            atual.add(ticker);
+            if (atual.size() == tamanhoLote) {
+                lotes.add(atual);
+                atual = new ArrayList<>(tamanhoLote);
+            }
+        }
+        if (!atual.isEmpty()) {
+            lotes.add(atual);
+        }
+        return lotes;
+    }
+
+    /**
+     * Consulta as cotações de um lote no provedor, com tempo máximo de resposta, passando
+     * pelo disjuntor e registrando as métricas.
+     *
+     * @param tickers Os códigos das ações, em maiúsculas.
+     * @return Uma futura que é concluída com as cotações retornadas, ou com erro se o provedor
+     *         falhar, exceder o tempo máximo de resposta ou o circuito estiver aberto.
+     */
+    private CompletableFuture<List<Cotacao>> consultar(List<String> tickers) {
+        long chamada = disjuntor.permitir();
+        if (chamada == DisjuntorCircuito.RECUSADA) {
+            RECUSADAS.increment();
+            return CompletableFuture.failedFuture(new IOException("API indisponível (circuito aberto)"));
+        }
+        CHAMADAS.increment();
+        long inicio = System.nanoTime();
+        return provedor.consultar(tickers)
+            .orTimeout(TEMPO_RESPOSTA_MS, TimeUnit.MILLISECONDS)
+            .whenComplete((cotacoes, erro) -> {
+                LATENCIA.registrarDesde(inicio);
+                if (erro != null) {
+                    ERROS.increment();
+                }
+                registrarResultado(chamada, erro);
+            });
+    }
+
+    /**
+     * Informa ao disjuntor o resultado de uma chamada que ele permitiu. Só erros de rede,
+     * tempo esgotado e respostas que indicam problema no serviço contam como falha; uma
+     * resposta de erro a uma requisição inválida mostra que a API está respondendo.
+     *
+     * @param chamada O número da chamada, recebido do disjuntor.
+     * @param erro    O erro da chamada, ou {@code null} se ela funcionou.
+     */
+    private void registrarResultado(long chamada, Throwable erro) {
+        Throwable causa = causa(erro);
+        if (causa == null || causa instanceof ErroHttp && !((ErroHttp) causa).falhaDoServico()) {
+            disjuntor.registrarSucesso(chamada);
+        } else if (causa instanceof IOException || causa instanceof TimeoutException) {
+            disjuntor.registrarFalha(chamada);
+        } else {
+            disjuntor.liberar(chamada);
+        }
+    }
+
+    /**
+     * Retorna o estado do disjuntor que protege as requisições à API.
+     *
+     * @return O estado do disjuntor.
+     */
+    public DisjuntorCircuito.Estado getEstadoDisjuntor() {
+        return disjuntor.getEstado();
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    }
+}
@@ -0,0 +1,123 @@
+package API;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Formato do arquivo de cotações gravado pelo {@link GravadorCotacoes} e lido pelo
+ * {@link ReprodutorCotacoes}.
+ * <p>
+ * O arquivo começa com o número mágico {@link #MAGICO} e segue com os registros, um por
+ * cotação, na ordem em que foram recebidos:
+ * <pre>
+ * tamanho do ticker (1 byte) | ticker (UTF-8) | preço (8) | variação (8) | volume (8) |
+ * instante (8) | tamanho da moeda (1 byte, 0 se ausente) | moeda (UTF-8)
+ * </pre>
+ * Os números são gravados em big-endian, e os preços em ponto fixo (veja {@link Preco}).
+ */
+final class ArquivoCotacoes {
+    /** Número mágico no início do arquivo ({@code "COT1"}). */
+    static final int MAGICO = 0x434F5431;
+    /** Tamanho do cabeçalho, em bytes. */
+    static final int TAMANHO_CABECALHO = Integer.BYTES;
+    /** Tamanho máximo, em bytes, do ticker e da moeda de um registro. */
+    private static final int TAMANHO_MAXIMO_TEXTO = 255;
+    /** Bytes de um registro além do ticker e da moeda. */
+    private static final int TAMANHO_FIXO = 2 + 4 * Long.BYTES;
+
+    private ArquivoCotacoes() {
+    }
+
+    /**
+     * Codifica as cotações como registros do arquivo. Cotações com ticker ou moeda com mais
+     * de 255 bytes são ignoradas.
+     *
+     * @param cotacoes As cotações.
+     * @return Um buffer pronto para ser gravado, com os registros das cotações.
+     */
+    static ByteBuffer codificar(List<Cotacao> cotacoes) {
+        byte[][] tickers = new byte[cotacoes.size()][];
+        byte[][] moedas = new byte[cotacoes.size()][];
+        int tamanho = 0;
+        for (int i = 0; i < cotacoes.size(); i++) {
+            Cotacao cotacao = cotacoes.get(i);
+            tickers[i] = cotacao.getTicker().getBytes(StandardCharsets.UTF_8);
+            moedas[i] = cotacao.getMoeda() != null ? cotacao.getMoeda().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (tickers[i].length <= TAMANHO_MAXIMO_TEXTO && moedas[i].length <= TAMANHO_MAXIMO_TEXTO) {
+                tamanho += TAMANHO_FIXO + tickers[i].length + moedas[i].length;
+            }
+        }
+
+        ByteBuffer registros = ByteBuffer.allocate(tamanho);
+        for (int i = 0; i < cotacoes.size(); i++) {
+            if (tickers[i].length > TAMANHO_MAXIMO_TEXTO || moedas[i].length > TAMANHO_MAXIMO_TEXTO) {
+                continue;
+            }
+            Cotacao cotacao = cotacoes.get(i);
+            registros.put((byte) tickers[i].length).put(tickers[i])
+                .putLong(cotacao.getPreco())
+                .putLong(cotacao.getVariacao())
+                .putLong(cotacao.getVolume())
+                .putLong(cotacao.getEpochMillis())
+                .put((byte) moedas[i].length).put(moedas[i]);
+        }
+        return registros.flip();
+    }
+
+    /**
+     * Calcula onde termina o registro que começa na posição informada.
+     *
+     * @param arquivo O conteúdo do arquivo.
+     * @param posicao A posição do início do registro.
+     * @return A posição seguinte ao fim do registro, ou -1 se o registro estiver incompleto.
+     */
+    static int fimRegistro(ByteBuffer arquivo, int posicao) {
+        int limite = arquivo.limit();
+        int posicaoMoeda = posicao + 1 + Byte.toUnsignedInt(arquivo.get(posicao)) + 4 * Long.BYTES;
+        if (posicaoMoeda >= limite) {
+            return -1;
+        }
+        int fim = posicaoMoeda + 1 + Byte.toUnsignedInt(arquivo.get(posicaoMoeda));
+        return fim <= limite ? fim : -1;
+    }
+
+    /**
+     * Lê o ticker do registro que começa na posição informada.
+     *
+     * @param arquivo O conteúdo do arquivo.
+     * @param posicao A posição do início de um registro completo.
+     * @return O ticker.
+     */
+    static String lerTicker(ByteBuffer arquivo, int posicao) {
+        ByteBuffer leitura = arquivo.duplicate();
+        leitura.position(posicao);
+        return lerTexto(leitura);
+    }
+
+    /**
+     * Lê a cotação do registro que começa na posição informada. O buffer não é alterado, e
+     * várias threads podem ler o mesmo buffer ao mesmo tempo.
+     *
+     * @param arquivo O conteúdo do arquivo.
+     * @param posicao A posição do início de um registro completo.
+     * @return A cotação.
+     */
+    static Cotacao ler(ByteBuffer arquivo, int posicao) {
+        ByteBuffer leitura = arquivo.duplicate();
+        leitura.position(posicao);
+        String ticker = lerTexto(leitura);
+        long preco = leitura.getLong();
+        long variacao = leitura.getLong();
+        long volume = leitura.getLong();
+        long epochMillis = leitura.getLong();
+        String moeda = lerTexto(leitura);
+        return new Cotacao(ticker, preco, variacao, volume, epochMillis, moeda.isEmpty() ? null : moeda);
+    }
+
+    private static String lerTexto(ByteBuffer leitura) {
+        byte[] texto = new byte[Byte.toUnsignedInt(leitura.get())];
+        leitura.get(texto);
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package API;
+
+/**
+ * A classe Cotacao representa a cotação de uma ação retornada pela API, apenas com os
+ * campos usados pelo sistema. Os preços são guardados em ponto fixo (veja {@link Preco}).
+ */
+public final class Cotacao {
+    private final String ticker;
+    private final long preco;
+    private final long variacao;
+    private final long volume;
+    private final long epochMillis;
+    private final String moeda;
+
+    /**
+     * Construtor da classe Cotacao.
+     *
+     * @param ticker      O código da ação, em maiúsculas.
+     * @param preco       O preço da ação, em ponto fixo.
+     * @param variacao    A variação do preço no dia, em ponto fixo.
+     * @param volume      O volume negociado no dia.
+     * @param epochMillis O instante da cotação, em milissegundos desde a época Unix, ou 0 se
+     *                    a API não o informou.
+     * @param moeda       O código da moeda do preço, por exemplo {@code "BRL"}, ou {@code null}
+     *                    se a API não o informou.
+     */
+    public Cotacao(String ticker, long preco, long variacao, long volume, long epochMillis, String moeda) {
+        this.ticker = ticker;
+        this.preco = preco;
+        this.variacao = variacao;
+        this.volume = volume;
+        this.epochMillis = epochMillis;
+        this.moeda = moeda;
+    }
+
+    /**
+     * @return O código da ação, em maiúsculas.
+     */
+    public String getTicker() {
+        return ticker;
+    }
+
+    /**
+     * @return O preço da ação, em ponto fixo.
+     */
+    public long getPreco() {
+        return preco;
+    }
+
+    /**
+     * @return A variação do preço no dia, em ponto fixo.
+     */
+    public long getVariacao() {
+        return variacao;
+    }
+
+    /**
+     * @return A variação do preço no dia, em porcentagem do preço de abertura do período.
+     */
+    public double getVariacaoPercentual() {
+        return Preco.variacaoPercentual(preco - variacao, preco);
+    }
+
+    /**
+     * @return O volume negociado no dia.
+     */
+    public long getVolume() {
+        return volume;
+    }
+
+    /**
+     * @return O instante da cotação, em milissegundos desde a época Unix, ou 0 se a API não o informou.
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return O código da moeda do preço, ou {@code null} se a API não o informou.
+     */
+    public String getMoeda() {
+        return moeda;
+    }
+
+    @Override
+    public String toString() {
+        return ticker + "=" + Preco.formatar(preco);
+    }
+}
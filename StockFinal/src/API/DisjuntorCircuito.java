@@ -0,0 +1,150 @@
+package API;
+
+/**
+ * A classe DisjuntorCircuito protege o sistema de um serviço externo que está falhando.
+ * <p>
+ * Enquanto o disjuntor está {@link Estado#FECHADO fechado}, todas as chamadas são permitidas.
+ * Depois de um número de falhas seguidas ele {@link Estado#ABERTO abre}, e as chamadas são
+ * recusadas imediatamente, sem esperar pelo serviço. Passado o tempo de espera, o disjuntor
+ * fica {@link Estado#SEMI_ABERTO semiaberto} e permite uma única chamada de teste: se ela
+ * funcionar, o disjuntor fecha; se falhar, abre de novo.
+ * <p>
+ * Cada chamada permitida recebe um número, que identifica o estado do disjuntor em que ela
+ * começou, e informa o resultado com esse número. Resultados de chamadas que começaram antes
+ * da última mudança de estado são ignorados: uma chamada lenta, permitida antes de o
+ * disjuntor abrir, não o fecha ao terminar; só a chamada de teste tira o disjuntor do estado
+ * aberto.
+ */
+public class DisjuntorCircuito {
+    /** Número padrão de falhas seguidas que abrem o disjuntor. */
+    public static final int LIMITE_FALHAS_PADRAO = 5;
+    /** Tempo padrão, em milissegundos, que o disjuntor fica aberto antes de testar o serviço. */
+    public static final long TEMPO_ABERTO_PADRAO_MS = 10_000;
+    /** Valor devolvido por {@link #permitir()} quando a chamada é recusada. */
+    public static final long RECUSADA = -1;
+
+    /**
+     * Os estados do disjuntor.
+     */
+    public enum Estado {
+        /** O serviço está saudável e as chamadas são permitidas. */
+        FECHADO,
+        /** O serviço está falhando e as chamadas são recusadas. */
+        ABERTO,
+        /** Uma chamada de teste está em andamento; as demais são recusadas. */
+        SEMI_ABERTO
+    }
+
+    private final int limiteFalhas;
+    private final long tempoAbertoMs;
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas;
+    private long abertoEm;
+    private long geracao;
+
+    /**
+     * Construtor da classe DisjuntorCircuito, com o limite de falhas e o tempo aberto padrão.
+     */
+    public DisjuntorCircuito() {
+        this(LIMITE_FALHAS_PADRAO, TEMPO_ABERTO_PADRAO_MS);
+    }
+
+    /**
+     * Construtor da classe DisjuntorCircuito.
+     *
+     * @param limiteFalhas  O número de falhas seguidas que abrem o disjuntor.
+     * @param tempoAbertoMs O tempo, em milissegundos, que o disjuntor fica aberto antes de
+     *                      permitir uma chamada de teste.
+     */
+    public DisjuntorCircuito(int limiteFalhas, long tempoAbertoMs) {
+        if (limiteFalhas <= 0 || tempoAbertoMs <= 0) {
+            throw new IllegalArgumentException("Limite de falhas e tempo aberto devem ser positivos");
+        }
+        this.limiteFalhas = limiteFalhas;
+        this.tempoAbertoMs = tempoAbertoMs;
+    }
+
+    /**
+     * Verifica se uma chamada pode ser feita. Quando o tempo de espera do disjuntor aberto
+     * termina, a primeira chamada verificada passa a ser a chamada de teste; quem recebe um
+     * número deve sempre informar o resultado com {@link #registrarSucesso(long)},
+     * {@link #registrarFalha(long)} ou {@link #liberar(long)}.
+     *
+     * @return O número da chamada, ou {@link #RECUSADA} se a chamada não pode ser feita.
+     */
+    public synchronized long permitir() {
+        switch (estado) {
+            case FECHADO:
+                return geracao;
+            case ABERTO:
+                if (System.nanoTime() - abertoEm < tempoAbertoMs * 1_000_000) {
+                    return RECUSADA;
+                }
+                mudarPara(Estado.SEMI_ABERTO);
+                return geracao;
+            default:
+                return RECUSADA;
+        }
+    }
+
+    /**
+     * Registra uma chamada que funcionou. A chamada de teste fecha o disjuntor; com o
+     * disjuntor fechado, a contagem de falhas seguidas recomeça.
+     *
+     * @param chamada O número recebido de {@link #permitir()}.
+     */
+    public synchronized void registrarSucesso(long chamada) {
+        if (chamada != geracao) {
+            return;
+        }
+        if (estado != Estado.FECHADO) {
+            mudarPara(Estado.FECHADO);
+        }
+        falhasSeguidas = 0;
+    }
+
+    /**
+     * Registra uma chamada que falhou. O disjuntor abre se a chamada era de teste ou se o
+     * limite de falhas seguidas foi atingido.
+     *
+     * @param chamada O número recebido de {@link #permitir()}.
+     */
+    public synchronized void registrarFalha(long chamada) {
+        if (chamada != geracao) {
+            return;
+        }
+        falhasSeguidas++;
+        if (estado == Estado.SEMI_ABERTO || falhasSeguidas >= limiteFalhas) {
+            mudarPara(Estado.ABERTO);
+            abertoEm = System.nanoTime();
+        }
+    }
+
+    /**
+     * Registra uma chamada cujo resultado não diz se o serviço está saudável, como uma
+     * requisição inválida ou interrompida. Se era a chamada de teste, o disjuntor volta a
+     * ficar aberto, e a próxima chamada verificada passa a ser a de teste.
+     *
+     * @param chamada O número recebido de {@link #permitir()}.
+     */
+    public synchronized void liberar(long chamada) {
+        if (chamada == geracao && estado == Estado.SEMI_ABERTO) {
+            mudarPara(Estado.ABERTO);
+            abertoEm = System.nanoTime() - tempoAbertoMs * 1_000_000;
+        }
+    }
+
+    private void mudarPara(Estado novo) {
+        estado = novo;
+        geracao++;
+    }
+
+    /**
+     * Retorna o estado atual do disjuntor.
+     *
+     * @return O estado do disjuntor.
+     */
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+}
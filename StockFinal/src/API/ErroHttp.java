@@ -0,0 +1,42 @@
+package API;
+
+import java.io.IOException;
+
+/**
+ * Resposta da API HTTP com código diferente de 200.
+ * <p>
+ * Só as respostas que indicam problema no serviço contam como falha para o
+ * {@link DisjuntorCircuito}: erros do servidor (5xx) e excesso de requisições (429). Os demais
+ * erros, como um ticker inválido, mostram que a API está respondendo.
+ */
+final class ErroHttp extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    /**
+     * Construtor da classe ErroHttp.
+     *
+     * @param status O código de status da resposta.
+     */
+    ErroHttp(int status) {
+        super("Erro na conexão: " + status);
+        this.status = status;
+    }
+
+    /**
+     * @return O código de status da resposta.
+     */
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * Verifica se a resposta indica um problema no serviço, e não na requisição.
+     *
+     * @return {@code true} para erros do servidor e excesso de requisições.
+     */
+    boolean falhaDoServico() {
+        return status >= 500 || status == 429;
+    }
+}
@@ -0,0 +1,113 @@
+package API;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provedor que repassa as consultas a outro provedor, normalmente o {@link ProvedorHttp}, e
+ * acrescenta as cotações recebidas a um arquivo local, no formato compacto lido pelo
+ * {@link ReprodutorCotacoes} (modo de gravação).
+ * <p>
+ * Cada resposta é gravada de uma vez, diretamente no canal do arquivo, sem buffer na memória;
+ * as respostas com erro não são gravadas. Se o arquivo já existir, as novas cotações são
+ * acrescentadas ao final. Uma falha na gravação é informada, mas não afeta a consulta.
+ */
+public class GravadorCotacoes implements ProvedorCotacoes {
+    private final ProvedorCotacoes origem;
+    private final FileChannel canal;
+
+    /**
+     * Construtor da classe GravadorCotacoes.
+     *
+     * @param origem  O provedor consultado.
+     * @param arquivo O arquivo onde as cotações são gravadas.
+     * @throws IOException Se o arquivo não puder ser aberto ou não for um arquivo de cotações.
+     */
+    public GravadorCotacoes(ProvedorCotacoes origem, Path arquivo) throws IOException {
+        this.origem = origem;
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            prepararArquivo(arquivo);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Grava o cabeçalho de um arquivo novo, ou confere o de um arquivo existente, e posiciona
+     * o canal no final do arquivo.
+     */
+    private void prepararArquivo(Path arquivo) throws IOException {
+        if (canal.size() == 0) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(ArquivoCotacoes.TAMANHO_CABECALHO).putInt(ArquivoCotacoes.MAGICO).flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho);
+            }
+        } else {
+            ByteBuffer cabecalho = ByteBuffer.allocate(ArquivoCotacoes.TAMANHO_CABECALHO);
+            canal.read(cabecalho, 0);
+            if (cabecalho.position() < ArquivoCotacoes.TAMANHO_CABECALHO || cabecalho.getInt(0) != ArquivoCotacoes.MAGICO) {
+                throw new IOException(arquivo + " não é um arquivo de cotações");
+            }
+        }
+        canal.position(canal.size());
+    }
+
+    @Override
+    public CompletableFuture<List<Cotacao>> consultar(List<String> tickers) {
+        return origem.consultar(tickers).thenApply(cotacoes -> {
+            gravar(cotacoes);
+            return cotacoes;
+        });
+    }
+
+    /**
+     * Repassa a consulta ao provedor de origem; a resposta completa não é gravada.
+     */
+    @Override
+    public String obterResposta(String ticker) throws IOException, InterruptedException {
+        return origem.obterResposta(ticker);
+    }
+
+    /**
+     * Acrescenta as cotações ao final do arquivo.
+     *
+     * @param cotacoes As cotações recebidas.
+     */
+    private void gravar(List<Cotacao> cotacoes) {
+        if (cotacoes.isEmpty()) {
+            return;
+        }
+        ByteBuffer registros = ArquivoCotacoes.codificar(cotacoes);
+        synchronized (canal) {
+            try {
+                while (registros.hasRemaining()) {
+                    canal.write(registros);
+                }
+            } catch (IOException e) {
+                System.out.println("Erro ao gravar cotações: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fecha o arquivo de cotações. As consultas seguintes continuam sendo repassadas, mas não
+     * são mais gravadas.
+     */
+    public void fechar() {
+        synchronized (canal) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o arquivo de cotações: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package API;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * A classe LeitorCotacoes extrai as cotações de uma resposta da API diretamente do fluxo,
+ * com o {@link JsonReader} do Gson.
+ * <p>
+ * Nenhuma árvore de objetos JSON é montada: apenas os campos {@code symbol},
+ * {@code currency}, {@code regularMarketPrice}, {@code regularMarketChange},
+ * {@code regularMarketVolume} e {@code regularMarketTime} de cada item de {@code results} são lidos, e todo o resto é
+ * descartado à medida que passa. A classe não guarda estado, e uma única instância pode ser
+ * usada por várias threads.
+ */
+public class LeitorCotacoes {
+
+    /**
+     * Lê as cotações de uma resposta da API. Itens sem símbolo ou sem preço são ignorados.
+     *
+     * @param resposta O corpo da resposta. Não é fechado por este método.
+     * @return As cotações, na ordem em que aparecem na resposta.
+     * @throws IOException Se a resposta não puder ser lida ou não for um JSON válido.
+     * @throws NumberFormatException Se um preço não for um número válido.
+     */
+    public List<Cotacao> ler(Reader resposta) throws IOException {
+        List<Cotacao> cotacoes = new ArrayList<>();
+        JsonReader json = new JsonReader(resposta);
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("results") && json.peek() == JsonToken.BEGIN_ARRAY) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    Cotacao cotacao = lerCotacao(json);
+                    if (cotacao != null) {
+                        cotacoes.add(cotacao);
+                    }
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return cotacoes;
+    }
+
+    /**
+     * Lê um item de {@code results}.
+     *
+     * @param json O leitor posicionado no início do item.
+     * @return A cotação, ou {@code null} se o item não tiver símbolo ou preço.
+     * @throws IOException Se o item não puder ser lido.
+     */
+    private Cotacao lerCotacao(JsonReader json) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            json.skipValue();
+            return null;
+        }
+        String ticker = null;
+        String moeda = null;
+        long preco = 0;
+        boolean temPreco = false;
+        long variacao = 0;
+        long volume = 0;
+        long epochMillis = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String campo = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (campo) {
+                case "symbol":
+                    ticker = json.nextString().toUpperCase();
+                    break;
+                case "currency":
+                    moeda = json.nextString();
+                    break;
+                case "regularMarketPrice":
+                    preco = Preco.paraPontoFixo(json.nextString());
+                    temPreco = true;
+                    break;
+                case "regularMarketChange":
+                    variacao = Preco.paraPontoFixo(json.nextString());
+                    break;
+                case "regularMarketVolume":
+                    volume = (long) json.nextDouble();
+                    break;
+                case "regularMarketTime":
+                    epochMillis = lerInstante(json);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return ticker != null && temPreco ? new Cotacao(ticker, preco, variacao, volume, epochMillis, moeda) : null;
+    }
+
+    /**
+     * Lê o instante da cotação, enviado como data ISO-8601 ou em segundos desde a época Unix.
+     *
+     * @param json O leitor posicionado no valor do campo.
+     * @return O instante em milissegundos desde a época Unix, ou 0 se o valor não for reconhecido.
+     * @throws IOException Se o valor não puder ser lido.
+     */
+    private static long lerInstante(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NUMBER) {
+            return json.nextLong() * 1000;
+        }
+        String valor = json.nextString();
+        try {
+            return Instant.parse(valor).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
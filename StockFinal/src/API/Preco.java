@@ -0,0 +1,140 @@
+package API;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A classe Preco reúne as conversões dos preços em ponto fixo usados em todo o sistema.
+ * <p>
+ * Um preço é um {@code long} igual ao valor multiplicado por 10<sup>{@value #CASAS_DECIMAIS}</sup>,
+ * de modo que preços podem ser guardados, comparados e somados sem criar objetos e sem
+ * erros de arredondamento. A conversão de texto não cria objetos para números em notação
+ * decimal simples, que é o formato enviado pela API e pelo banco de dados.
+ */
+public final class Preco {
+    /** Casas decimais dos preços em ponto fixo. */
+    public static final int CASAS_DECIMAIS = 4;
+    /** Fator entre um preço em ponto fixo e o seu valor. */
+    public static final long ESCALA = 10_000;
+
+    /** Maior parte inteira aceita, para que a conversão nunca ultrapasse o limite de {@code long}. */
+    private static final long MAXIMO_PARTE_INTEIRA = Long.MAX_VALUE / ESCALA - 1;
+
+    private Preco() {
+    }
+
+    /**
+     * Converte um preço em texto para ponto fixo, arredondando as casas excedentes para o
+     * valor mais próximo (metade para cima).
+     *
+     * @param preco O preço em texto, por exemplo {@code "38.5"}.
+     * @return O preço em ponto fixo.
+     * @throws NumberFormatException Se o texto não for um número válido ou for grande demais.
+     */
+    public static long paraPontoFixo(CharSequence preco) {
+        int inicio = 0;
+        int fim = preco.length();
+        while (inicio < fim && Character.isWhitespace(preco.charAt(inicio))) {
+            inicio++;
+        }
+        while (fim > inicio && Character.isWhitespace(preco.charAt(fim - 1))) {
+            fim--;
+        }
+        boolean negativo = inicio < fim && preco.charAt(inicio) == '-';
+        int posicao = negativo || (inicio < fim && preco.charAt(inicio) == '+') ? inicio + 1 : inicio;
+
+        long inteiro = 0;
+        int digitos = 0;
+        while (posicao < fim && Character.isDigit(preco.charAt(posicao))) {
+            inteiro = inteiro * 10 + (preco.charAt(posicao++) - '0');
+            digitos++;
+            if (inteiro > MAXIMO_PARTE_INTEIRA) {
+                return paraPontoFixoGenerico(preco, inicio, fim);
+            }
+        }
+        long fracao = 0;
+        int casas = 0;
+        boolean arredondar = false;
+        if (posicao < fim && preco.charAt(posicao) == '.') {
+            posicao++;
+            while (posicao < fim && Character.isDigit(preco.charAt(posicao))) {
+                int digito = preco.charAt(posicao++) - '0';
+                if (casas < CASAS_DECIMAIS) {
+                    fracao = fracao * 10 + digito;
+                } else if (casas == CASAS_DECIMAIS) {
+                    arredondar = digito >= 5;
+                }
+                casas++;
+                digitos++;
+            }
+        }
+        if (posicao < fim || digitos == 0) {
+            // Expoentes e outros formatos ficam com a conversão genérica, que também rejeita texto inválido.
+            return paraPontoFixoGenerico(preco, inicio, fim);
+        }
+        for (int i = Math.min(casas, CASAS_DECIMAIS); i < CASAS_DECIMAIS; i++) {
+            fracao *= 10;
+        }
+        long valor = inteiro * ESCALA + fracao + (arredondar ? 1 : 0);
+        return negativo ? -valor : valor;
+    }
+
+    private static long paraPontoFixoGenerico(CharSequence preco, int inicio, int fim) {
+        try {
+            return new BigDecimal(preco.subSequence(inicio, fim).toString())
+                .setScale(CASAS_DECIMAIS, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Preço fora do intervalo: " + preco);
+        }
+    }
+
+    /**
+     * Converte um preço em ponto fixo para texto, com pelo menos duas casas decimais.
+     *
+     * @param preco O preço em ponto fixo.
+     * @return O preço em texto, por exemplo {@code "38.50"}.
+     */
+    public static String formatar(long preco) {
+        StringBuilder texto = new StringBuilder(24);
+        if (preco < 0) {
+            texto.append('-');
+        }
+        long absoluto = Math.abs(preco);
+        long fracao = absoluto % ESCALA;
+        texto.append(absoluto / ESCALA).append('.');
+        int casas = CASAS_DECIMAIS;
+        while (casas > 2 && fracao % 10 == 0) {
+            fracao /= 10;
+            casas--;
+        }
+        long divisor = 1;
+        for (int i = 1; i < casas; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 1 && fracao < divisor; divisor /= 10) {
+            texto.append('0');
+        }
+        return texto.append(fracao).toString();
+    }
+
+    /**
+     * Converte um preço em ponto fixo para {@link BigDecimal}, com {@value #CASAS_DECIMAIS} casas.
+     *
+     * @param preco O preço em ponto fixo.
+     * @return O preço como {@code BigDecimal}.
+     */
+    public static BigDecimal paraBigDecimal(long preco) {
+        return BigDecimal.valueOf(preco, CASAS_DECIMAIS);
+    }
+
+    /**
+     * Calcula a variação percentual entre dois preços.
+     *
+     * @param anterior O preço anterior, em ponto fixo.
+     * @param atual    O preço atual, em ponto fixo.
+     * @return A variação em porcentagem, ou {@code 0} se o preço anterior for zero.
+     */
+    public static double variacaoPercentual(long anterior, long atual) {
+        return anterior == 0 ? 0 : (atual - anterior) * 100.0 / anterior;
+    }
+}
@@ -0,0 +1,39 @@
+package API;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fonte das cotações consultadas pelo {@link API_Client}.
+ * <p>
+ * O {@link API_Client} divide os tickers em lotes, aplica o tempo máximo de resposta, o
+ * {@link DisjuntorCircuito} e as métricas; o provedor apenas obtém as cotações de um lote.
+ * As implementações são a API HTTP ({@link ProvedorHttp}), a gravação das respostas de outro
+ * provedor em arquivo ({@link GravadorCotacoes}) e a reprodução de um arquivo gravado
+ * ({@link ReprodutorCotacoes}).
+ */
+public interface ProvedorCotacoes {
+
+    /**
+     * Consulta as cotações de um lote de ações, sem bloquear a thread que chama.
+     *
+     * @param tickers Os códigos das ações, em maiúsculas e sem repetições.
+     * @return Uma futura que é concluída com as cotações obtidas, em qualquer ordem, ou com
+     *         erro se a consulta falhar. Ações sem cotação não aparecem na lista.
+     */
+    CompletableFuture<List<Cotacao>> consultar(List<String> tickers);
+
+    /**
+     * Obtém a resposta completa da fonte para uma ação, no formato JSON da API.
+     * Nem todos os provedores guardam a resposta completa; por padrão, nenhuma é retornada.
+     *
+     * @param ticker O código da ação.
+     * @return O corpo da resposta, ou {@code null} se o provedor não fornecer a resposta completa.
+     * @throws IOException Se a consulta falhar.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda a resposta.
+     */
+    default String obterResposta(String ticker) throws IOException, InterruptedException {
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package API;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provedor que consulta as cotações na API HTTP (a brapi), no modo ao vivo.
+ * <p>
+ * Todas as requisições usam um único {@link HttpClient}, que reaproveita as conexões (com
+ * HTTP/2, quando o servidor aceita) e tem tempos máximos de conexão e de resposta. O corpo de
+ * cada resposta é recebido sem ocupar uma thread e só então lido pelo {@link LeitorCotacoes},
+ * sem montar texto nem árvore JSON.
+ */
+public class ProvedorHttp implements ProvedorCotacoes {
+    private static final LeitorCotacoes LEITOR = new LeitorCotacoes();
+
+    private final String baseUrl;
+    private final String token;
+    private final ExecutorService executorHttp = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "api-http");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofMillis(API_Client.TEMPO_CONEXAO_MS))
+        .executor(executorHttp)
+        .build();
+
+    /**
+     * Construtor da classe ProvedorHttp.
+     *
+     * @param baseUrl A URL base da API.
+     * @param token   O token de autenticação da API.
+     */
+    public ProvedorHttp(String baseUrl, String token) {
+        this.baseUrl = baseUrl;
+        this.token = token;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Os tickers são enviados em uma única requisição. Respostas de erro também são lidas
+     * até o fim, para que a conexão possa ser reaproveitada, e concluem a futura com erro;
+     * as respostas 400 e 404, que a API dá para tickers desconhecidos ou inválidos, são
+     * tratadas como um lote sem cotações.
+     */
+    @Override
+    public CompletableFuture<List<Cotacao>> consultar(List<String> tickers) {
+        HttpRequest requisicao;
+        try {
+            requisicao = criarRequisicao(String.join(",", tickers));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return http.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray()).thenApply(resposta -> {
+            if (resposta.statusCode() == 400 || resposta.statusCode() == 404) {
+                return List.<Cotacao>of();
+            }
+            if (resposta.statusCode() != 200) {
+                throw new CompletionException(new ErroHttp(resposta.statusCode()));
+            }
+            try (Reader corpo = new InputStreamReader(new ByteArrayInputStream(resposta.body()), StandardCharsets.UTF_8)) {
+                return LEITOR.ler(corpo);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public String obterResposta(String ticker) throws IOException, InterruptedException {
+        HttpResponse<String> resposta;
+        try {
+            resposta = http.send(criarRequisicao(ticker), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (resposta.statusCode() != 200) {
+            throw new ErroHttp(resposta.statusCode());
+        }
+        return resposta.body();
+    }
+
+    /**
+     * Cria uma requisição GET para o caminho informado.
+     *
+     * @param caminho O ticker, ou a lista de tickers separados por vírgula.
+     * @return A requisição.
+     * @throws IllegalArgumentException Se a URL resultante for inválida.
+     */
+    private HttpRequest criarRequisicao(String caminho) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + caminho + "?token=" + token))
+            .timeout(Duration.ofMillis(API_Client.TEMPO_RESPOSTA_MS))
+            .GET()
+            .build();
+    }
+}
@@ -0,0 +1,155 @@
+package API;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provedor que responde com as cotações de um arquivo gravado pelo {@link GravadorCotacoes},
+ * sem acessar a rede (modo de reprodução).
+ * <p>
+ * O arquivo é mapeado na memória e percorrido uma vez na construção, montando um índice com
+ * as posições dos registros de cada ticker; as cotações são lidas do mapeamento somente
+ * quando consultadas. Cada consulta de um ticker retorna o registro seguinte desse ticker, na
+ * ordem da gravação, e volta ao primeiro depois do último; assim, a mesma sequência de
+ * consultas recebe sempre os mesmos preços. Tickers que não estão no arquivo ficam fora da
+ * resposta, como na API.
+ * <p>
+ * Opcionalmente, as respostas são atrasadas por uma latência sintética, para simular a API.
+ */
+public class ReprodutorCotacoes implements ProvedorCotacoes {
+    private final MappedByteBuffer arquivo;
+    private final Map<String, Registros> indice;
+    private final long latenciaMs;
+    private final Executor atraso;
+
+    /**
+     * Construtor da classe ReprodutorCotacoes, sem latência sintética.
+     *
+     * @param arquivo O arquivo de cotações.
+     * @throws IOException Se o arquivo não puder ser lido ou não for um arquivo de cotações.
+     */
+    public ReprodutorCotacoes(Path arquivo) throws IOException {
+        this(arquivo, 0);
+    }
+
+    /**
+     * Construtor da classe ReprodutorCotacoes.
+     *
+     * @param arquivo    O arquivo de cotações.
+     * @param latenciaMs O tempo, em milissegundos, que cada consulta leva para ser concluída,
+     *                   ou 0 para concluir na hora.
+     * @throws IOException Se o arquivo não puder ser lido ou não for um arquivo de cotações.
+     */
+    public ReprodutorCotacoes(Path arquivo, long latenciaMs) throws IOException {
+        if (latenciaMs < 0) {
+            throw new IllegalArgumentException("A latência não pode ser negativa");
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException(arquivo + " é grande demais para ser reproduzido");
+            }
+            this.arquivo = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (this.arquivo.limit() < ArquivoCotacoes.TAMANHO_CABECALHO || this.arquivo.getInt(0) != ArquivoCotacoes.MAGICO) {
+            throw new IOException(arquivo + " não é um arquivo de cotações");
+        }
+        this.indice = indexar(arquivo);
+        this.latenciaMs = latenciaMs;
+        this.atraso = latenciaMs > 0 ? CompletableFuture.delayedExecutor(latenciaMs, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Percorre os registros do arquivo e agrupa as suas posições por ticker. Um registro
+     * incompleto no final, deixado por uma gravação interrompida, é ignorado.
+     */
+    private Map<String, Registros> indexar(Path caminho) {
+        Map<String, List<Integer>> posicoes = new HashMap<>();
+        int posicao = ArquivoCotacoes.TAMANHO_CABECALHO;
+        while (posicao < arquivo.limit()) {
+            int fim = ArquivoCotacoes.fimRegistro(arquivo, posicao);
+            if (fim < 0) {
+                System.out.println("Registro incompleto ignorado no final de " + caminho);
+                break;
+            }
+            posicoes.computeIfAbsent(ArquivoCotacoes.lerTicker(arquivo, posicao), ticker -> new ArrayList<>()).add(posicao);
+            posicao = fim;
+        }
+
+        Map<String, Registros> indice = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> ticker : posicoes.entrySet()) {
+            indice.put(ticker.getKey(), new Registros(ticker.getValue()));
+        }
+        return indice;
+    }
+
+    @Override
+    public CompletableFuture<List<Cotacao>> consultar(List<String> tickers) {
+        if (atraso == null) {
+            return CompletableFuture.completedFuture(ler(tickers));
+        }
+        return CompletableFuture.supplyAsync(() -> ler(tickers), atraso);
+    }
+
+    /**
+     * Lê a próxima cotação de cada ticker.
+     *
+     * @param tickers Os códigos das ações.
+     * @return As cotações dos tickers presentes no arquivo.
+     */
+    private List<Cotacao> ler(List<String> tickers) {
+        List<Cotacao> cotacoes = new ArrayList<>(tickers.size());
+        for (String ticker : tickers) {
+            Registros registros = indice.get(ticker.toUpperCase());
+            if (registros != null) {
+                cotacoes.add(ArquivoCotacoes.ler(arquivo, registros.proxima()));
+            }
+        }
+        return cotacoes;
+    }
+
+    /**
+     * @return Os tickers presentes no arquivo.
+     */
+    public Set<String> getTickers() {
+        return Collections.unmodifiableSet(indice.keySet());
+    }
+
+    /**
+     * @return A latência sintética das consultas, em milissegundos.
+     */
+    public long getLatenciaMs() {
+        return latenciaMs;
+    }
+
+    /**
+     * As posições dos registros de um ticker e a posição do próximo a ser reproduzido.
+     */
+    private static final class Registros {
+        private final int[] posicoes;
+        private final AtomicInteger proxima = new AtomicInteger();
+
+        Registros(List<Integer> posicoes) {
+            this.posicoes = new int[posicoes.size()];
+            for (int i = 0; i < this.posicoes.length; i++) {
+                this.posicoes[i] = posicoes.get(i);
+            }
+        }
+
+        int proxima() {
+            return posicoes[Math.floorMod(proxima.getAndIncrement(), posicoes.length)];
+        }
+    }
+}
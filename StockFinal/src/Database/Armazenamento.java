@@ -0,0 +1,78 @@
+package Database;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A interface Armazenamento representa um local onde o serviço de banco de dados grava e
+ * consulta os preços, em substituição à tabela {@code cache_precos_acoes} do MySQL.
+ * <p>
+ * As datas são formatadas como {@code yyyy-MM-dd HH:mm:ss}, em UTC, e as linhas de histórico
+ * seguem o formato {@code data_hora: preço}, como nas respostas que o {@link Database} monta
+ * a partir do MySQL.
+ *
+ * @see Database#setArmazenamento(Armazenamento)
+ */
+public interface Armazenamento {
+
+    /**
+     * Grava o preço de uma ação.
+     *
+     * @param ticker      O código da ação.
+     * @param preco       O preço da ação, em ponto fixo (veja {@link API.Preco}).
+     * @param epochMillis O instante do preço, em milissegundos desde a época Unix.
+     * @throws IOException Se não for possível gravar o preço.
+     */
+    void salvar(String ticker, long preco, long epochMillis) throws IOException;
+
+    /**
+     * Garante que os preços gravados até aqui sobrevivam a uma queda do sistema.
+     *
+     * @throws IOException Se não for possível sincronizar os dados.
+     */
+    void sincronizar() throws IOException;
+
+    /**
+     * Busca o preço mais recente de uma ação.
+     *
+     * @param ticker O código da ação.
+     * @return Um array com o ticker, o preço e a data e hora, ou {@code null} se não houver preço.
+     * @throws IOException Se não for possível ler o preço.
+     */
+    String[] buscarUltimo(String ticker) throws IOException;
+
+    /**
+     * Envia o preço mais recente de cada ação, desde que não seja anterior ao instante
+     * informado, em qualquer ordem.
+     *
+     * @param desde O instante mínimo do preço, em milissegundos desde a época Unix.
+     * @param saida O destino de cada preço, no formato {@code ticker, preço, data_hora}.
+     * @return A quantidade de preços enviados.
+     * @throws IOException Se não for possível ler os preços.
+     */
+    int transmitirUltimos(long desde, Consumer<String> saida) throws IOException;
+
+    /**
+     * Envia uma página do histórico de preços de uma ação em um intervalo de tempo, do
+     * registro mais recente para o mais antigo.
+     *
+     * @param ticker O código da ação.
+     * @param inicio O início do intervalo, inclusivo, em milissegundos desde a época Unix.
+     * @param fim    O fim do intervalo, exclusivo, em milissegundos desde a época Unix.
+     * @param limite O número máximo de registros da página.
+     * @param cursor O cursor devolvido pela página anterior, ou {@code null} para a primeira página.
+     * @param saida  O destino de cada registro, no formato {@code data_hora: preço}.
+     * @return O cursor da próxima página, ou {@code null} se não houver mais registros.
+     * @throws IOException Se não for possível ler o histórico.
+     * @throws IllegalArgumentException Se o cursor for inválido.
+     */
+    String transmitirHistorico(String ticker, long inicio, long fim, int limite, String cursor,
+                               Consumer<String> saida) throws IOException;
+
+    /**
+     * Sincroniza e libera os recursos do armazenamento.
+     *
+     * @throws IOException Se não for possível fechar o armazenamento.
+     */
+    void fechar() throws IOException;
+}
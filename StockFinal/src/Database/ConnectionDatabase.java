@@ -1,70 +1,213 @@
-package Database;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-
-/**
- * Classe responsável por gerenciar a conexão com o banco de dados.
- */
-public class ConnectionDatabase {
-    private String host;
-    private int porta;
-    private String nomeBanco;
-    private String usuario;
-    private String senha;
-
-    /**
-     * Construtor da classe ConnectionDatabase.
-     * 
-     * @param host      O endereço do host onde o banco de dados está localizado.
-     * @param porta     A porta usada para conectar ao banco de dados.
-     * @param nomeBanco O nome do banco de dados.
-     * @param usuario   O nome de usuário para autenticação.
-     * @param senha     A senha para autenticação.
-     */
-    public ConnectionDatabase(String host, int porta, String nomeBanco, String usuario, String senha) {
-        this.host = host;
-        this.porta = porta;
-        this.nomeBanco = nomeBanco;
-        this.usuario = usuario;
-        this.senha = senha;
-    }
-
-    /**
-     * Estabelece uma conexão com o banco de dados.
-     * 
-     * @return Um objeto {@link Connection} representando a conexão com o banco de dados,
-     *         ou {@code null} em caso de falha.
-     */
-    public Connection conectar() {
-        Connection conexao = null;
-        try {
-            String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC", 
-                host, porta, nomeBanco);
-            conexao = DriverManager.getConnection(url, usuario, senha);
-            System.out.println("Conectado ao banco de dados: " + nomeBanco + " com sucesso!");
-        } catch (SQLException e) {
-            System.err.println("Erro ao conectar ao banco de dados: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return conexao;
-    }
-
-    /**
-     * Fecha a conexão com o banco de dados.
-     * 
-     * @param conexao A conexão a ser fechada. Se a conexão for {@code null}, o método
-     *                não executará nenhuma ação.
-     */
-    public void fecharConexao(Connection conexao) {
-        if (conexao != null) {
-            try {
-                conexao.close();
-                System.out.println("Conexão fechada com sucesso!");
-            } catch (SQLException e) {
-                System.err.println("Erro ao fechar a conexão: " + e.getMessage());
-            }
-        }
-    }
-}
+package Database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classe responsável por gerenciar a conexão com o banco de dados.
+ */
+public class ConnectionDatabase {
+    /** Número padrão de conexões no pool. */
+    public static final int TAMANHO_POOL_PADRAO = 10;
+    /** Tempo padrão, em milissegundos, de espera por uma conexão livre do pool. */
+    public static final long TEMPO_ESPERA_POOL_PADRAO_MS = 5_000;
+    /** Tempo, em segundos, para validar uma conexão antes de entregá-la. */
+    private static final int TEMPO_VALIDACAO_S = 2;
+
+    private String host;
+    private int porta;
+    private String nomeBanco;
+    private String usuario;
+    private String senha;
+
+    private Semaphore permissoesPool;
+    private final Deque<Connection> conexoesOciosas = new ConcurrentLinkedDeque<>();
+    private long tempoEsperaPoolMs;
+    private volatile boolean poolFechado;
+
+    /**
+     * Construtor da classe ConnectionDatabase.
+     * 
+     * @param host      O endereço do host onde o banco de dados está localizado.
+     * @param porta     A porta usada para conectar ao banco de dados.
+     * @param nomeBanco O nome do banco de dados.
+     * @param usuario   O nome de usuário para autenticação.
+     * @param senha     A senha para autenticação.
+     */
+    public ConnectionDatabase(String host, int porta, String nomeBanco, String usuario, String senha) {
+        this.host = host;
+        this.porta = porta;
+        this.nomeBanco = nomeBanco;
+        this.usuario = usuario;
+        this.senha = senha;
+    }
+
+    /**
+     * Estabelece uma conexão com o banco de dados.
+     * 
+     * @return Um objeto {@link Connection} representando a conexão com o banco de dados,
+     *         ou {@code null} em caso de falha.
+     */
+    public Connection conectar() {
+        Connection conexao = null;
+        try {
+            conexao = DriverManager.getConnection(montarUrl(), usuario, senha);
+            System.out.println("Conectado ao banco de dados: " + nomeBanco + " com sucesso!");
+        } catch (SQLException e) {
+            System.err.println("Erro ao conectar ao banco de dados: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return conexao;
+    }
+
+    /**
+     * Monta a URL JDBC. Além das opções de conexão, ativa o cache de prepared statements
+     * por conexão e a reescrita de lotes em INSERTs de várias linhas.
+     *
+     * @return A URL JDBC do banco de dados.
+     */
+    private String montarUrl() {
+        return String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC"
+            + "&rewriteBatchedStatements=true"
+            + "&cachePrepStmts=true&useServerPrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048",
+            host, porta, nomeBanco);
+    }
+
+    /**
+     * Inicia o pool de conexões. As conexões são abertas sob demanda, até o tamanho máximo,
+     * e reaproveitadas depois de devolvidas.
+     *
+     * @param tamanhoMaximo O número máximo de conexões abertas ao mesmo tempo.
+     * @param tempoEsperaMs O tempo máximo, em milissegundos, de espera por uma conexão livre.
+     */
+    public void iniciarPool(int tamanhoMaximo, long tempoEsperaMs) {
+        if (tamanhoMaximo <= 0 || tempoEsperaMs < 0) {
+            throw new IllegalArgumentException("Tamanho do pool e tempo de espera inválidos");
+        }
+        this.permissoesPool = new Semaphore(tamanhoMaximo, true);
+        this.tempoEsperaPoolMs = tempoEsperaMs;
+        this.poolFechado = false;
+    }
+
+    /**
+     * Indica se o pool de conexões foi iniciado.
+     *
+     * @return {@code true} se {@link #iniciarPool(int, long)} já foi chamado.
+     */
+    public boolean poolIniciado() {
+        return permissoesPool != null;
+    }
+
+    /**
+     * Obtém uma conexão do pool. Uma conexão ociosa é validada antes de ser entregue;
+     * se estiver inválida, é descartada e substituída por uma nova.
+     * Toda conexão obtida deve ser devolvida com {@link #devolverConexao(Connection)}.
+     *
+     * @return Uma conexão válida com o banco de dados.
+     * @throws SQLException Se não houver conexão livre dentro do tempo de espera, se não for
+     *                      possível abrir uma nova conexão ou se o pool já tiver sido fechado.
+     */
+    public Connection obterConexao() throws SQLException {
+        if (permissoesPool == null) {
+            throw new IllegalStateException("O pool de conexões não foi iniciado");
+        }
+        if (poolFechado) {
+            throw new SQLException("O pool de conexões foi fechado");
+        }
+        try {
+            if (!permissoesPool.tryAcquire(tempoEsperaPoolMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Tempo esgotado aguardando uma conexão livre do pool");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando uma conexão do pool", e);
+        }
+
+        try {
+            Connection conexao;
+            while ((conexao = conexoesOciosas.pollFirst()) != null) {
+                if (conexao.isValid(TEMPO_VALIDACAO_S)) {
+                    return conexao;
+                }
+                fecharSilenciosamente(conexao);
+            }
+            return DriverManager.getConnection(montarUrl(), usuario, senha);
+        } catch (SQLException | RuntimeException e) {
+            permissoesPool.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve ao pool uma conexão obtida com {@link #obterConexao()}.
+     * Depois de {@link #fecharPool()}, a conexão devolvida é fechada.
+     *
+     * @param conexao A conexão a ser devolvida. Se for {@code null}, nada é feito.
+     */
+    public void devolverConexao(Connection conexao) {
+        if (conexao == null) {
+            return;
+        }
+        try {
+            if (!poolFechado && !conexao.isClosed() && conexao.getAutoCommit()) {
+                conexoesOciosas.offerFirst(conexao);
+                // Se o pool foi fechado enquanto a conexão era devolvida, ela é fechada aqui.
+                if (poolFechado) {
+                    fecharOciosas();
+                }
+            } else {
+                fecharSilenciosamente(conexao);
+            }
+        } catch (SQLException e) {
+            fecharSilenciosamente(conexao);
+        } finally {
+            permissoesPool.release();
+        }
+    }
+
+    /**
+     * Fecha o pool: as conexões ociosas são fechadas agora, e as que estão em uso são
+     * fechadas quando forem devolvidas. Novas conexões deixam de ser entregues.
+     */
+    public void fecharPool() {
+        poolFechado = true;
+        fecharOciosas();
+    }
+
+    private void fecharOciosas() {
+        Connection conexao;
+        while ((conexao = conexoesOciosas.pollFirst()) != null) {
+            fecharSilenciosamente(conexao);
+        }
+    }
+
+    private void fecharSilenciosamente(Connection conexao) {
+        try {
+            conexao.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão do pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fecha a conexão com o banco de dados.
+     * 
+     * @param conexao A conexão a ser fechada. Se a conexão for {@code null}, o método
+     *                não executará nenhuma ação.
+     */
+    public void fecharConexao(Connection conexao) {
+        if (conexao != null) {
+            try {
+                conexao.close();
+                System.out.println("Conexão fechada com sucesso!");
+            } catch (SQLException e) {
+                System.err.println("Erro ao fechar a conexão: " + e.getMessage());
+            }
+        }
+    }
+}
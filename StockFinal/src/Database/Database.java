@@ -1,182 +1,908 @@
-package Database;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-/**
- * Classe responsável por gerenciar a conexão com o banco de dados e processar requisições de clientes.
- */
-public class Database {
-    private int portaBanco;
-    private ServerSocket serverSocket;
-    private Connection conexaoBD;
-    private volatile boolean executando = true;
-
-    /**
-     * Construtor da classe Database.
-     * 
-     * @param conexaoBD A conexão com o banco de dados.
-     * @param portaBanco A porta na qual o servidor de banco de dados escutará.
-     */
-    public Database(Connection conexaoBD, int portaBanco) {
-        this.conexaoBD = conexaoBD;
-        this.portaBanco = portaBanco;
-    }
-
-    /**
-     * Inicia o serviço de banco de dados.
-     * Aguarda por conexões de clientes e processa suas requisições.
-     */
-    public void iniciar() {
-        try {
-            System.out.println("Serviço de banco de dados iniciando na porta: " + portaBanco);
-            serverSocket = new ServerSocket(portaBanco);
-
-            while (executando) {
-                Socket socketCliente = serverSocket.accept();
-                processarRequisicao(socketCliente);
-            }
-        } catch (IOException e) {
-            System.out.println("Erro ao iniciar o serviço de banco de dados: " + e.getMessage());
-        } finally {
-            fecharConexaoBanco();
-        }
-    }
-
-    /**
-     * Processa uma requisição de um cliente.
-     *
-     * @param socketCliente O socket do cliente conectado.
-     */
-    public void processarRequisicao(Socket socketCliente) {
-        try (
-            BufferedReader entrada = new BufferedReader(new InputStreamReader(socketCliente.getInputStream()));
-            PrintWriter saida = new PrintWriter(socketCliente.getOutputStream(), true);
-        ) {
-            String linhaEntrada;
-            while ((linhaEntrada = entrada.readLine()) != null) {
-                String[] partes = linhaEntrada.split(" ");
-                String comando = partes[0];
-                String ticker = partes[1];
-                String preco = partes.length > 2 ? partes[2] : null;
-
-                if ("SALVAR".equalsIgnoreCase(comando)) {
-                    salvarNoBanco(ticker, preco);
-                    saida.println("PRECO_SALVO");
-                } else if ("BUSCAR".equalsIgnoreCase(comando)) {
-                    String[] dados = buscarNoBanco(ticker);
-                    if (dados != null) {
-                        saida.println(String.join(", ", dados));
-                    } else {
-                        saida.println("DADOS_NAO_ENCONTRADOS");
-                    }
-                } else if ("HISTORICO".equalsIgnoreCase(comando)) {
-                    String historico = buscarHistorico(ticker);
-                    String[] linhas = historico.split("\n");
-                    for (String linha : linhas) {
-                        saida.println(linha);
-                    }
-                    saida.println("FIM_HISTORICO");
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
-        } finally {
-            try {
-                socketCliente.close();
-            } catch (IOException e) {
-                System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
-            }
-        }
-    }
-
-    /**
-     * Salva o preço de uma ação no banco de dados.
-     *
-     * @param ticker O código da ação.
-     * @param preco O preço da ação.
-     */
-    public void salvarNoBanco(String ticker, String preco) {
-        String sql = "INSERT INTO cache_precos_acoes (ticker, preco, data_hora) VALUES (?, ?, NOW())";
-        try (PreparedStatement stmt = conexaoBD.prepareStatement(sql)) {
-            stmt.setString(1, ticker);
-            stmt.setString(2, preco);
-            int linhasAfetadas = stmt.executeUpdate();
-            if (linhasAfetadas > 0) {
-                System.out.println("Novo preço inserido no banco de dados com sucesso!");
-            } else {
-                System.out.println("Nenhuma linha afetada ao inserir o preço.");
-            }
-        } catch (SQLException e) {
-            System.out.println("Erro ao inserir preço no banco de dados: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Busca o preço mais recente de uma ação no banco de dados.
-     *
-     * @param ticker O código da ação.
-     * @return Um array com o ticker e o preço da ação, ou {@code null} se não encontrado.
-     */
-    public String[] buscarNoBanco(String ticker) {
-        String sql = "SELECT * FROM cache_precos_acoes WHERE ticker = ? ORDER BY data_hora DESC LIMIT 1";
-        try (PreparedStatement stmt = conexaoBD.prepareStatement(sql)) {
-            stmt.setString(1, ticker);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new String[]{rs.getString("ticker"), rs.getString("preco")};
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Erro ao buscar no banco: " + e.getMessage());
-        }
-        return null;
-    }
-
-    /**
-     * Busca o histórico de preços de uma ação no banco de dados.
-     *
-     * @param ticker O código da ação.
-     * @return Uma string contendo o histórico de preços da ação, ou uma mensagem de erro se ocorrer algum problema.
-     */
-    public String buscarHistorico(String ticker) {
-        String sql = "SELECT preco, data_hora FROM cache_precos_acoes WHERE ticker = ? ORDER BY data_hora DESC LIMIT 10";
-        StringBuilder resultado = new StringBuilder();
-        try (PreparedStatement stmt = conexaoBD.prepareStatement(sql)) {
-            stmt.setString(1, ticker);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    resultado.append(rs.getString("data_hora"))
-                             .append(": ")
-                             .append(rs.getString("preco"))
-                             .append("\n");
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Erro ao buscar histórico no banco: " + e.getMessage());
-            return "ERRO_AO_BUSCAR_HISTORICO";
-        }
-        return resultado.length() > 0 ? resultado.toString() : "HISTORICO_NAO_ENCONTRADO";
-    }
-
-    /**
-     * Fecha a conexão com o banco de dados.
-     */
-    public void fecharConexaoBanco() {
-        try {
-            if (conexaoBD != null && !conexaoBD.isClosed()) {
-                conexaoBD.close();
-            }
-        } catch (SQLException e) {
-            System.out.println("Erro ao fechar conexão com o banco: " + e.getMessage());
-        }
-    }
-}
+package Database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import API.Preco;
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+import SOCKET.ProtocoloBinario;
+
+/**
+ * Classe responsável por gerenciar a conexão com o banco de dados e processar requisições de clientes.
+ */
+public class Database {
+    /** Número padrão de registros em uma página do histórico por período. */
+    public static final int TAMANHO_PAGINA_PADRAO = 1_000;
+    /** Número máximo de registros em uma página do histórico por período. */
+    public static final int TAMANHO_PAGINA_MAXIMO = 10_000;
+
+    private static final Histograma LATENCIA_INSERCAO = Metricas.global().histograma("banco.insercao");
+    private static final Histograma LATENCIA_CONSULTA = Metricas.global().histograma("banco.consulta");
+    private static final Histograma LATENCIA_HISTORICO = Metricas.global().histograma("banco.historico");
+    private static final Histograma LATENCIA_ULTIMOS = Metricas.global().histograma("banco.ultimos");
+
+    private int portaBanco;
+    private ServerSocket serverSocket;
+    private Connection conexaoBD;
+    private ConnectionDatabase poolConexoes;
+    private final ReentrantLock travaConexaoUnica = new ReentrantLock();
+    private volatile boolean executando = true;
+    private Executor executorConexoes = criarExecutorPadrao();
+    private volatile GravadorAssincrono gravadorAssincrono;
+    private volatile Armazenamento armazenamento;
+
+    /**
+     * Construtor da classe Database.
+     * As conexões de clientes são atendidas em paralelo, como nos demais construtores, mas as
+     * operações no banco se revezam na conexão única, uma de cada vez.
+     * 
+     * @param conexaoBD A conexão com o banco de dados.
+     * @param portaBanco A porta na qual o servidor de banco de dados escutará.
+     */
+    public Database(Connection conexaoBD, int portaBanco) {
+        this.conexaoBD = conexaoBD;
+        this.portaBanco = portaBanco;
+    }
+
+    /**
+     * Construtor da classe Database que usa o pool de conexões de {@link ConnectionDatabase}.
+     * As conexões de clientes são atendidas em paralelo, e cada operação obtém sua própria
+     * conexão do pool, de modo que uma consulta lenta não bloqueia as demais.
+     * Se o pool ainda não tiver sido iniciado, ele é iniciado com os valores padrão.
+     *
+     * @param poolConexoes O gerenciador de conexões que fornece o pool.
+     * @param portaBanco A porta na qual o servidor de banco de dados escutará.
+     */
+    public Database(ConnectionDatabase poolConexoes, int portaBanco) {
+        if (!poolConexoes.poolIniciado()) {
+            poolConexoes.iniciarPool(ConnectionDatabase.TAMANHO_POOL_PADRAO,
+                ConnectionDatabase.TEMPO_ESPERA_POOL_PADRAO_MS);
+        }
+        this.poolConexoes = poolConexoes;
+        this.portaBanco = portaBanco;
+    }
+
+    /**
+     * Construtor da classe Database que grava e consulta os preços em um {@link Armazenamento}
+     * local, sem MySQL. As conexões de clientes são atendidas em paralelo.
+     *
+     * @param armazenamento O armazenamento dos preços.
+     * @param portaBanco    A porta na qual o servidor de banco de dados escutará.
+     */
+    public Database(Armazenamento armazenamento, int portaBanco) {
+        this.armazenamento = armazenamento;
+        this.portaBanco = portaBanco;
+    }
+
+    /**
+     * Cria o executor padrão das conexões, com uma thread por conexão.
+     */
+    private static Executor criarExecutorPadrao() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "database-conexao-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Inicia o serviço de banco de dados.
+     * Aguarda por conexões de clientes e processa suas requisições.
+     */
+    public void iniciar() {
+        try {
+            System.out.println("Serviço de banco de dados iniciando na porta: " + portaBanco);
+            serverSocket = new ServerSocket(portaBanco);
+
+            while (executando) {
+                Socket socketCliente = serverSocket.accept();
+                executorConexoes.execute(() -> processarRequisicao(socketCliente));
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao iniciar o serviço de banco de dados: " + e.getMessage());
+        } finally {
+            fecharConexaoBanco();
+        }
+    }
+
+    /**
+     * Define o executor usado para atender cada conexão e as requisições identificadas.
+     * O executor não pode atender as conexões uma por vez: o {@code Server} mantém conexões
+     * persistentes com o serviço, e uma conexão atendida na thread que aceita as demais as
+     * deixaria esperando indefinidamente. Se nenhum executor for definido, é criada uma
+     * thread por conexão.
+     *
+     * @param executorConexoes O executor das conexões, ou {@code null} para uma thread por conexão.
+     */
+    public void setExecutorConexoes(Executor executorConexoes) {
+        this.executorConexoes = executorConexoes != null ? executorConexoes : criarExecutorPadrao();
+    }
+
+    /**
+     * Passa a confirmar os comandos SALVAR assim que o preço entra em uma fila limitada,
+     * deixando a inserção no banco para uma thread que grava os preços em lotes.
+     * Os preços pendentes são gravados em {@link #fecharConexaoBanco()} e no encerramento da JVM.
+     *
+     * @param capacidade        O número máximo de preços aguardando gravação.
+     * @param tamanhoLote       O número máximo de preços gravados em um único lote.
+     * @param intervaloMaximoMs O tempo máximo, em milissegundos, que um preço aguarda na fila.
+     */
+    public void ativarGravacaoAssincrona(int capacidade, int tamanhoLote, long intervaloMaximoMs) {
+        if (gravadorAssincrono != null) {
+            gravadorAssincrono.encerrar();
+        }
+        GravadorAssincrono novo = new GravadorAssincrono(this, capacidade, tamanhoLote, intervaloMaximoMs);
+        gravadorAssincrono = novo;
+        Metricas.global().medidor("banco.fila_gravacao", novo::pendentes);
+    }
+
+    /**
+     * Define um armazenamento que substitui o MySQL nas operações de gravação e consulta
+     * de preços. Com {@code null}, as operações voltam a usar o MySQL.
+     *
+     * @param armazenamento O armazenamento dos preços, ou {@code null} para usar o MySQL.
+     */
+    public void setArmazenamento(Armazenamento armazenamento) {
+        this.armazenamento = armazenamento;
+    }
+
+    /**
+     * Retorna o gravador assíncrono, se a gravação assíncrona estiver ativa.
+     *
+     * @return O gravador assíncrono, ou {@code null} se os preços são salvos de forma síncrona.
+     */
+    public GravadorAssincrono getGravadorAssincrono() {
+        return gravadorAssincrono;
+    }
+
+    /**
+     * Processa uma requisição de um cliente.
+     * <p>
+     * Uma linha pode começar com um identificador no formato {@code #<id> }. Nesse caso,
+     * cada linha da resposta é precedida pelo mesmo identificador, o que permite ao cliente
+     * manter várias requisições em andamento na mesma conexão. As requisições identificadas
+     * são processadas em paralelo, no executor das conexões.
+     * As linhas de cada resposta são acumuladas no buffer de saída e enviadas ao fim da
+     * resposta, ou antes, quando o buffer enche. As linhas são lidas do mesmo fluxo com
+     * buffer que atende o modo binário, para que os quadros enviados logo após a negociação
+     * não se percam.
+     *
+     * @param socketCliente O socket do cliente conectado.
+     */
+    public void processarRequisicao(Socket socketCliente) {
+        Phaser emAndamento = new Phaser(1);
+        try (
+            BufferedInputStream entrada = new BufferedInputStream(socketCliente.getInputStream());
+            PrintWriter saida = new PrintWriter(socketCliente.getOutputStream(), false);
+        ) {
+            String linhaEntrada;
+            while ((linhaEntrada = ProtocoloBinario.lerLinha(entrada)) != null) {
+                if (ProtocoloBinario.NEGOCIACAO.equalsIgnoreCase(linhaEntrada)) {
+                    saida.println(ProtocoloBinario.NEGOCIACAO_OK);
+                    saida.flush();
+                    atenderBinario(new DataInputStream(entrada),
+                        new DataOutputStream(new BufferedOutputStream(socketCliente.getOutputStream())), emAndamento);
+                    break;
+                }
+                int espaco = linhaEntrada.indexOf(' ');
+                if (linhaEntrada.startsWith("#") && espaco > 0) {
+                    String prefixo = linhaEntrada.substring(0, espaco + 1);
+                    String requisicao = linhaEntrada.substring(espaco + 1);
+                    emAndamento.register();
+                    executorConexoes.execute(() -> {
+                        try {
+                            atender(requisicao, linha -> saida.println(prefixo + linha));
+                            saida.flush();
+                        } finally {
+                            emAndamento.arriveAndDeregister();
+                        }
+                    });
+                } else {
+                    atender(linhaEntrada, saida::println);
+                    saida.flush();
+                }
+            }
+            emAndamento.arriveAndAwaitAdvance();
+        } catch (IOException e) {
+            System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
+        } finally {
+            try {
+                socketCliente.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Atende um cliente no modo binário do protocolo, depois da negociação.
+     * Os quadros são processados em paralelo, no executor das conexões, e as respostas podem
+     * chegar fora de ordem; o cliente as associa pelo identificador.
+     *
+     * @param entrada     O fluxo de entrada do cliente.
+     * @param saida       O fluxo de saída do cliente.
+     * @param emAndamento O registro das requisições em andamento na conexão.
+     * @throws IOException Se ocorrer um erro de I/O na comunicação com o cliente.
+     * @see ProtocoloBinario
+     */
+    private void atenderBinario(DataInputStream entrada, DataOutputStream saida, Phaser emAndamento) throws IOException {
+        ReentrantLock trava = new ReentrantLock();
+        ProtocoloBinario.Quadro quadro;
+        while ((quadro = ProtocoloBinario.Quadro.ler(entrada)) != null) {
+            if (quadro.operacao() == ProtocoloBinario.OP_SAIR) {
+                return;
+            }
+            ProtocoloBinario.Quadro requisicao = quadro;
+            ProtocoloBinario.Escritor escritor = new ProtocoloBinario.Escritor(saida, trava);
+            emAndamento.register();
+            executorConexoes.execute(() -> {
+                try {
+                    responderBinario(requisicao, escritor);
+                } finally {
+                    emAndamento.arriveAndDeregister();
+                }
+            });
+        }
+    }
+
+    /**
+     * Executa a operação de um quadro binário e envia o quadro de resposta.
+     *
+     * @param quadro   O quadro recebido.
+     * @param escritor O escritor usado para enviar a resposta.
+     */
+    private void responderBinario(ProtocoloBinario.Quadro quadro, ProtocoloBinario.Escritor escritor) {
+        int requisicao = quadro.requisicao();
+        try {
+            DataInputStream conteudo = quadro.conteudo();
+            String ticker = ProtocoloBinario.lerTicker(conteudo);
+            switch (quadro.operacao()) {
+                case ProtocoloBinario.OP_SALVAR: {
+                    long preco = conteudo.readLong();
+                    Timestamp dataHora = new Timestamp(conteudo.readLong());
+                    GravadorAssincrono gravador = gravadorAssincrono;
+                    if (gravador != null) {
+                        gravador.enfileirar(ticker, preco, dataHora);
+                    } else {
+                        salvarNoBanco(ticker, preco);
+                    }
+                    escritor.iniciar(ProtocoloBinario.RESP_OK, requisicao);
+                    escritor.enviar();
+                    break;
+                }
+                case ProtocoloBinario.OP_BUSCAR: {
+                    String[] dados = buscarNoBanco(ticker);
+                    if (dados == null) {
+                        escritor.iniciar(ProtocoloBinario.RESP_NAO_ENCONTRADO, requisicao);
+                    } else {
+                        DataOutputStream resposta = escritor.iniciar(ProtocoloBinario.RESP_PRECO, requisicao);
+                        ProtocoloBinario.escreverTicker(resposta, dados[0]);
+                        resposta.writeLong(ProtocoloBinario.paraPontoFixo(dados[1]));
+                        resposta.writeLong(ProtocoloBinario.paraEpochMillis(dados[2]));
+                    }
+                    escritor.enviar();
+                    break;
+                }
+                case ProtocoloBinario.OP_HISTORICO: {
+                    String historico = buscarHistorico(ticker);
+                    if ("HISTORICO_NAO_ENCONTRADO".equals(historico)) {
+                        escritor.iniciar(ProtocoloBinario.RESP_NAO_ENCONTRADO, requisicao);
+                        escritor.enviar();
+                    } else if ("ERRO_AO_BUSCAR_HISTORICO".equals(historico)) {
+                        escritor.enviarErro(requisicao, historico);
+                    } else {
+                        ProtocoloBinario.escreverHistorico(escritor.iniciar(ProtocoloBinario.RESP_HISTORICO, requisicao),
+                            ticker, Arrays.asList(historico.split("\n")));
+                        escritor.enviar();
+                    }
+                    break;
+                }
+                default:
+                    escritor.enviarErro(requisicao, "COMANDO_DESCONHECIDO");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Erro ao responder requisição binária: " + e.getMessage());
+            try {
+                escritor.enviarErro(requisicao, "ERRO_NA_REQUISICAO");
+            } catch (IOException erroEnvio) {
+                System.out.println("Erro ao comunicar com o cliente: " + erroEnvio.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Executa um comando com {@link #responder(String, Consumer)}. Se o comando falhar, responde
+     * com {@code ERRO_NA_REQUISICAO}, como o modo binário, para que o cliente não fique
+     * aguardando uma resposta que não virá.
+     *
+     * @param requisicao O comando recebido, sem identificador.
+     * @param saida      O destino de cada linha da resposta.
+     */
+    private void atender(String requisicao, Consumer<String> saida) {
+        try {
+            responder(requisicao, saida);
+        } catch (RuntimeException e) {
+            System.out.println("Erro ao responder requisição: " + e.getMessage());
+            responderErro(requisicao.split(" ", 2)[0], "ERRO_NA_REQUISICAO", saida);
+        }
+    }
+
+    /**
+     * Envia uma linha de erro, seguida do terminador da resposta do comando, se houver.
+     *
+     * @param comando O comando que falhou.
+     * @param erro    A linha de erro.
+     * @param saida   O destino de cada linha da resposta.
+     */
+    private static void responderErro(String comando, String erro, Consumer<String> saida) {
+        saida.accept(erro);
+        if ("HISTORICO".equalsIgnoreCase(comando)) {
+            saida.accept("FIM_HISTORICO");
+        } else if ("ULTIMOS".equalsIgnoreCase(comando)) {
+            saida.accept("FIM_ULTIMOS");
+        }
+    }
+
+    /**
+     * Executa um comando e envia as linhas da resposta.
+     * <p>
+     * O comando {@code BUSCAR <ticker>} responde com {@code ticker, preço, data_hora} do
+     * registro mais recente, ou {@code DADOS_NAO_ENCONTRADOS}. O comando {@code HISTORICO <ticker>} envia os registros mais recentes. Com um período,
+     * {@code HISTORICO <ticker> <inicio> <fim> [limite [cursor]]}, envia uma página do
+     * histórico no intervalo, com datas no formato ISO ({@code 2024-08-01T00:00:00}); se
+     * houver mais registros, a linha {@code PROXIMO <cursor>} precede {@code FIM_HISTORICO}.
+     * As datas dos comandos e das respostas estão sempre em UTC, qualquer que seja o fuso
+     * horário da sessão do MySQL, como no {@link ProtocoloBinario} e no {@link LogPrecos}.
+     * O comando {@code ULTIMOS <desde>} envia, no formato de {@code BUSCAR}, o preço mais
+     * recente de cada ação que não seja anterior à data informada (em formato ISO), terminado
+     * por {@code FIM_ULTIMOS}. O comando {@code STATS} envia o relatório das métricas do
+     * processo, terminado por {@code FIM_STATS}. Um comando sem ticker recebe
+     * {@code PARAMETROS_INVALIDOS}, e um comando desconhecido, {@code COMANDO_DESCONHECIDO}.
+     *
+     * @param linhaEntrada O comando recebido, sem identificador.
+     * @param saida        O destino de cada linha da resposta.
+     */
+    private void responder(String linhaEntrada, Consumer<String> saida) {
+        if ("STATS".equalsIgnoreCase(linhaEntrada)) {
+            Metricas.global().relatorio().forEach(saida);
+            saida.accept("FIM_STATS");
+            return;
+        }
+        String[] partes = linhaEntrada.split(" ");
+        String comando = partes[0];
+        if ("ULTIMOS".equalsIgnoreCase(comando)) {
+            responderUltimos(partes, saida);
+            return;
+        }
+        if (partes.length < 2 || partes[1].isEmpty()) {
+            responderErro(comando, "PARAMETROS_INVALIDOS", saida);
+            return;
+        }
+        String ticker = partes[1];
+
+        if ("SALVAR".equalsIgnoreCase(comando)) {
+            long preco;
+            try {
+                preco = Preco.paraPontoFixo(partes.length > 2 ? partes[2] : "");
+            } catch (NumberFormatException e) {
+                saida.accept("ERRO_AO_SALVAR");
+                return;
+            }
+            GravadorAssincrono gravador = gravadorAssincrono;
+            if (gravador != null) {
+                try {
+                    gravador.enfileirar(ticker, preco);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    saida.accept("ERRO_AO_SALVAR");
+                    return;
+                } catch (IllegalStateException e) {
+                    saida.accept("ERRO_AO_SALVAR");
+                    return;
+                }
+            } else {
+                salvarNoBanco(ticker, preco);
+            }
+            saida.accept("PRECO_SALVO");
+        } else if ("BUSCAR".equalsIgnoreCase(comando)) {
+            String[] dados = buscarNoBanco(ticker);
+            if (dados != null) {
+                saida.accept(String.join(", ", dados));
+            } else {
+                saida.accept("DADOS_NAO_ENCONTRADOS");
+            }
+        } else if ("HISTORICO".equalsIgnoreCase(comando) && partes.length > 2) {
+            responderHistoricoPeriodo(partes, saida);
+        } else if ("HISTORICO".equalsIgnoreCase(comando)) {
+            String historico = buscarHistorico(ticker);
+            String[] linhas = historico.split("\n");
+            for (String linha : linhas) {
+                saida.accept(linha);
+            }
+            saida.accept("FIM_HISTORICO");
+        } else {
+            saida.accept("COMANDO_DESCONHECIDO");
+        }
+    }
+
+    /**
+     * Responde ao comando {@code HISTORICO} com período, repassando os registros à medida
+     * que são lidos do banco.
+     *
+     * @param partes As partes do comando: comando, ticker, início, fim, limite e cursor.
+     * @param saida  O destino de cada linha da resposta.
+     */
+    private void responderHistoricoPeriodo(String[] partes, Consumer<String> saida) {
+        String ticker = partes[1];
+        Timestamp inicio;
+        Timestamp fim;
+        int limite;
+        try {
+            if (partes.length < 4 || partes.length > 6) {
+                throw new IllegalArgumentException("Número de parâmetros inválido");
+            }
+            inicio = lerDataHora(partes[2]);
+            fim = lerDataHora(partes[3]);
+            limite = partes.length > 4 ? Integer.parseInt(partes[4]) : TAMANHO_PAGINA_PADRAO;
+            if (limite <= 0) {
+                throw new IllegalArgumentException("Limite deve ser positivo");
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            saida.accept("PARAMETROS_INVALIDOS");
+            saida.accept("FIM_HISTORICO");
+            return;
+        }
+        String cursor = partes.length > 5 ? partes[5] : null;
+
+        int[] enviadas = new int[1];
+        long inicioConsulta = System.nanoTime();
+        try {
+            String proximo = transmitirHistorico(ticker, inicio, fim, limite, cursor, linha -> {
+                enviadas[0]++;
+                saida.accept(linha);
+            });
+            if (enviadas[0] == 0) {
+                saida.accept("HISTORICO_NAO_ENCONTRADO");
+            } else if (proximo != null) {
+                saida.accept("PROXIMO " + proximo);
+            }
+        } catch (IllegalArgumentException e) {
+            saida.accept("PARAMETROS_INVALIDOS");
+        } catch (SQLException e) {
+            System.out.println("Erro ao buscar histórico no banco: " + e.getMessage());
+            saida.accept("ERRO_AO_BUSCAR_HISTORICO");
+        }
+        LATENCIA_HISTORICO.registrarDesde(inicioConsulta);
+        saida.accept("FIM_HISTORICO");
+    }
+
+    /**
+     * Responde ao comando {@code ULTIMOS}, repassando os preços à medida que são lidos do banco.
+     *
+     * @param partes As partes do comando: comando e data mínima dos preços.
+     * @param saida  O destino de cada linha da resposta.
+     */
+    private void responderUltimos(String[] partes, Consumer<String> saida) {
+        Timestamp desde;
+        try {
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Número de parâmetros inválido");
+            }
+            desde = lerDataHora(partes[1]);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            saida.accept("PARAMETROS_INVALIDOS");
+            saida.accept("FIM_ULTIMOS");
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            transmitirUltimos(desde, saida);
+        } catch (SQLException e) {
+            System.out.println("Erro ao buscar os últimos preços no banco: " + e.getMessage());
+            saida.accept("ERRO_AO_BUSCAR_ULTIMOS");
+        }
+        LATENCIA_ULTIMOS.registrarDesde(inicio);
+        saida.accept("FIM_ULTIMOS");
+    }
+
+    /**
+     * Converte uma data de um comando, no formato ISO e em UTC, para um {@link Timestamp}.
+     *
+     * @param dataHora A data em texto, por exemplo {@code 2024-08-01T00:00:00}.
+     * @return O instante correspondente.
+     * @throws DateTimeParseException Se a data não estiver no formato ISO.
+     */
+    private static Timestamp lerDataHora(String dataHora) {
+        return Timestamp.from(LocalDateTime.parse(dataHora).toInstant(ZoneOffset.UTC));
+    }
+
+    /**
+     * Envia o preço mais recente de cada ação, desde que não seja anterior à data informada.
+     * <p>
+     * Uma única consulta obtém todos os preços, que são lidos em modo de streaming e
+     * repassados um a um, sem ficar na memória. A data mais recente de cada ação é obtida
+     * pelo índice {@code (ticker, data_hora)}; se uma ação tiver mais de um registro nessa
+     * data, todos são enviados. As datas da resposta são enviadas em UTC, como no
+     * {@link ProtocoloBinario} e no {@link LogPrecos}, para que o servidor obtenha o instante exato.
+     *
+     * @param desde A data mínima dos preços.
+     * @param saida O destino de cada preço, no formato {@code ticker, preço, data_hora}.
+     * @return A quantidade de preços enviados.
+     * @throws SQLException Se ocorrer um erro na consulta.
+     */
+    public int transmitirUltimos(Timestamp desde, Consumer<String> saida) throws SQLException {
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            try {
+                return local.transmitirUltimos(desde.getTime(), saida);
+            } catch (IOException e) {
+                throw new SQLException("Erro ao ler o armazenamento: " + e.getMessage(), e);
+            }
+        }
+        String sql = "SELECT c.ticker, c.preco, c.data_hora FROM cache_precos_acoes c"
+            + " JOIN (SELECT ticker, MAX(data_hora) AS data_hora FROM cache_precos_acoes"
+            + " WHERE data_hora >= ? GROUP BY ticker) u"
+            + " ON c.ticker = u.ticker AND c.data_hora = u.data_hora";
+
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            stmt.setTimestamp(1, desde);
+            // Com o MySQL Connector/J, este tamanho faz o driver entregar as linhas uma a uma.
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            int enviados = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    saida.accept(rs.getString("ticker") + ", " + rs.getString("preco") + ", "
+                        + ProtocoloBinario.formatarDataHora(rs.getTimestamp("data_hora").getTime()));
+                    enviados++;
+                }
+            }
+            return enviados;
+        }
+    }
+
+    /**
+     * Salva o preço de uma ação no banco de dados.
+     * A data e hora do registro vem do relógio deste processo, como na gravação em lotes do
+     * {@link GravadorAssincrono}, e não do {@code NOW()} da sessão do MySQL, que depende do
+     * fuso horário configurado no servidor.
+     *
+     * @param ticker O código da ação.
+     * @param preco O preço da ação, em ponto fixo.
+     */
+    public void salvarNoBanco(String ticker, long preco) {
+        long inicio = System.nanoTime();
+        inserirNoBanco(ticker, preco);
+        LATENCIA_INSERCAO.registrarDesde(inicio);
+    }
+
+    private void inserirNoBanco(String ticker, long preco) {
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            try {
+                local.salvar(ticker, preco, System.currentTimeMillis());
+            } catch (IOException e) {
+                System.out.println("Erro ao gravar preço no armazenamento: " + e.getMessage());
+            }
+            return;
+        }
+        String sql = "INSERT INTO cache_precos_acoes (ticker, preco, data_hora) VALUES (?, ?, ?)";
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            stmt.setString(1, ticker);
+            stmt.setBigDecimal(2, Preco.paraBigDecimal(preco));
+            stmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            int linhasAfetadas = stmt.executeUpdate();
+            if (linhasAfetadas > 0) {
+                System.out.println("Novo preço inserido no banco de dados com sucesso!");
+            } else {
+                System.out.println("Nenhuma linha afetada ao inserir o preço.");
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao inserir preço no banco de dados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva um lote de preços no banco de dados com uma única execução em lote.
+     * Com a opção {@code rewriteBatchedStatements} da conexão, o driver envia o lote como
+     * um único INSERT de várias linhas.
+     *
+     * @param lote Os preços a serem salvos, com o instante em que foram recebidos.
+     * @throws SQLException Se o lote não puder ser gravado; parte dele pode ter sido gravada.
+     */
+    void salvarLoteNoBanco(List<GravadorAssincrono.PrecoPendente> lote) throws SQLException {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            try {
+                for (GravadorAssincrono.PrecoPendente pendente : lote) {
+                    local.salvar(pendente.ticker, pendente.preco, pendente.dataHora.getTime());
+                }
+                local.sincronizar();
+            } catch (IOException e) {
+                throw new SQLException("Erro ao gravar no armazenamento: " + e.getMessage(), e);
+            }
+            return;
+        }
+        String sql = "INSERT INTO cache_precos_acoes (ticker, preco, data_hora) VALUES (?, ?, ?)";
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            for (GravadorAssincrono.PrecoPendente pendente : lote) {
+                stmt.setString(1, pendente.ticker);
+                stmt.setBigDecimal(2, Preco.paraBigDecimal(pendente.preco));
+                stmt.setTimestamp(3, pendente.dataHora);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            System.out.println(lote.size() + " preços inseridos no banco de dados em lote.");
+        }
+    }
+
+    /**
+     * Busca o preço mais recente de uma ação no banco de dados.
+     *
+     * @param ticker O código da ação.
+     * @return Um array com o ticker, o preço e a data e hora do registro, ou {@code null} se não encontrado.
+     */
+    public String[] buscarNoBanco(String ticker) {
+        long inicio = System.nanoTime();
+        String[] registro = buscarUltimoRegistro(ticker);
+        LATENCIA_CONSULTA.registrarDesde(inicio);
+        return registro;
+    }
+
+    /**
+     * Busca o registro mais recente de uma ação no banco de dados.
+     *
+     * @param ticker O código da ação.
+     * @return Um array com o ticker, o preço e a data e hora do registro, em UTC, ou
+     *         {@code null} se não encontrado.
+     */
+    private String[] buscarUltimoRegistro(String ticker) {
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            try {
+                return local.buscarUltimo(ticker);
+            } catch (IOException e) {
+                System.out.println("Erro ao buscar no armazenamento: " + e.getMessage());
+                return null;
+            }
+        }
+        String sql = "SELECT * FROM cache_precos_acoes WHERE ticker = ? ORDER BY data_hora DESC LIMIT 1";
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            stmt.setString(1, ticker);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new String[]{rs.getString("ticker"), rs.getString("preco"),
+                        ProtocoloBinario.formatarDataHora(rs.getTimestamp("data_hora").getTime())};
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao buscar no banco: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Busca o histórico de preços de uma ação no banco de dados.
+     *
+     * @param ticker O código da ação.
+     * @return Uma string contendo o histórico de preços da ação, ou uma mensagem de erro se ocorrer algum problema.
+     */
+    public String buscarHistorico(String ticker) {
+        long inicio = System.nanoTime();
+        String historico = lerHistorico(ticker);
+        LATENCIA_HISTORICO.registrarDesde(inicio);
+        return historico;
+    }
+
+    private String lerHistorico(String ticker) {
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            StringBuilder resultado = new StringBuilder();
+            try {
+                local.transmitirHistorico(ticker, Long.MIN_VALUE, Long.MAX_VALUE, 10, null,
+                    linha -> resultado.append(linha).append("\n"));
+            } catch (IOException e) {
+                System.out.println("Erro ao buscar histórico no armazenamento: " + e.getMessage());
+                return "ERRO_AO_BUSCAR_HISTORICO";
+            }
+            return resultado.length() > 0 ? resultado.toString() : "HISTORICO_NAO_ENCONTRADO";
+        }
+        String sql = "SELECT preco, data_hora FROM cache_precos_acoes WHERE ticker = ? ORDER BY data_hora DESC LIMIT 10";
+        StringBuilder resultado = new StringBuilder();
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            stmt.setString(1, ticker);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    resultado.append(ProtocoloBinario.formatarDataHora(rs.getTimestamp("data_hora").getTime()))
+                             .append(": ")
+                             .append(rs.getString("preco"))
+                             .append("\n");
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao buscar histórico no banco: " + e.getMessage());
+            return "ERRO_AO_BUSCAR_HISTORICO";
+        }
+        return resultado.length() > 0 ? resultado.toString() : "HISTORICO_NAO_ENCONTRADO";
+    }
+
+    /**
+     * Envia uma página do histórico de preços de uma ação em um intervalo de tempo, do
+     * registro mais recente para o mais antigo.
+     * <p>
+     * Os registros são lidos em modo de streaming e repassados um a um, de modo que nem a
+     * página nem o histórico completo ficam na memória. A paginação usa a posição do último
+     * registro enviado (data e identificador), e não um deslocamento, para que cada página
+     * custe o mesmo que a primeira. As datas são enviadas em UTC.
+     *
+     * @param ticker O código da ação.
+     * @param inicio O início do intervalo, inclusivo.
+     * @param fim    O fim do intervalo, exclusivo.
+     * @param limite O número máximo de registros da página, limitado a {@value #TAMANHO_PAGINA_MAXIMO}.
+     * @param cursor O cursor devolvido pela página anterior, ou {@code null} para a primeira página.
+     * @param saida  O destino de cada registro, no formato {@code data_hora: preço}.
+     * @return O cursor da próxima página, ou {@code null} se não houver mais registros.
+     * @throws SQLException Se ocorrer um erro na consulta.
+     * @throws IllegalArgumentException Se o cursor for inválido.
+     */
+    public String transmitirHistorico(String ticker, Timestamp inicio, Timestamp fim, int limite,
+                                      String cursor, Consumer<String> saida) throws SQLException {
+        int tamanhoPagina = Math.min(limite, TAMANHO_PAGINA_MAXIMO);
+        Armazenamento local = armazenamento;
+        if (local != null) {
+            try {
+                return local.transmitirHistorico(ticker, inicio.getTime(), fim.getTime(), tamanhoPagina, cursor, saida);
+            } catch (IOException e) {
+                throw new SQLException("Erro ao ler o armazenamento: " + e.getMessage(), e);
+            }
+        }
+        Timestamp dataCursor = null;
+        long idCursor = 0;
+        if (cursor != null) {
+            int separador = cursor.indexOf(':');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            dataCursor = new Timestamp(Long.parseLong(cursor.substring(0, separador)));
+            idCursor = Long.parseLong(cursor.substring(separador + 1));
+        }
+        String sql = "SELECT id, preco, data_hora FROM cache_precos_acoes"
+            + " WHERE ticker = ? AND data_hora >= ? AND data_hora < ?"
+            + (cursor != null ? " AND (data_hora < ? OR (data_hora = ? AND id < ?))" : "")
+            + " ORDER BY data_hora DESC, id DESC LIMIT ?";
+
+        try (ConexaoEmprestada emprestada = emprestarConexao();
+             PreparedStatement stmt = emprestada.conexao.prepareStatement(sql)) {
+            int parametro = 1;
+            stmt.setString(parametro++, ticker);
+            stmt.setTimestamp(parametro++, inicio);
+            stmt.setTimestamp(parametro++, fim);
+            if (cursor != null) {
+                stmt.setTimestamp(parametro++, dataCursor);
+                stmt.setTimestamp(parametro++, dataCursor);
+                stmt.setLong(parametro++, idCursor);
+            }
+            // Um registro a mais indica se existe uma próxima página.
+            stmt.setInt(parametro, tamanhoPagina + 1);
+            // Com o MySQL Connector/J, este tamanho faz o driver entregar as linhas uma a uma.
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int enviados = 0;
+                Timestamp ultimaData = null;
+                long ultimoId = 0;
+                while (rs.next()) {
+                    if (enviados == tamanhoPagina) {
+                        return ultimaData.getTime() + ":" + ultimoId;
+                    }
+                    ultimaData = rs.getTimestamp("data_hora");
+                    ultimoId = rs.getLong("id");
+                    saida.accept(ProtocoloBinario.formatarDataHora(ultimaData.getTime()) + ": " + rs.getString("preco"));
+                    enviados++;
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Fecha a conexão com o banco de dados.
+     * Se a gravação assíncrona estiver ativa, os preços pendentes são gravados antes.
+     */
+    public void fecharConexaoBanco() {
+        if (gravadorAssincrono != null) {
+            gravadorAssincrono.encerrar();
+        }
+        if (armazenamento != null) {
+            try {
+                armazenamento.fechar();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o armazenamento: " + e.getMessage());
+            }
+        }
+        if (poolConexoes != null) {
+            poolConexoes.fecharPool();
+        }
+        try {
+            if (conexaoBD != null && !conexaoBD.isClosed()) {
+                conexaoBD.close();
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao fechar conexão com o banco: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtém a conexão para uma operação: uma conexão do pool, se houver, ou a conexão única.
+     * A conexão única é reservada para a operação até ser devolvida, pois uma consulta em
+     * streaming impede outras consultas na mesma conexão enquanto está aberta.
+     *
+     * @return A conexão emprestada, que deve ser fechada ao final da operação.
+     * @throws SQLException Se não for possível obter uma conexão do pool.
+     */
+    private ConexaoEmprestada emprestarConexao() throws SQLException {
+        if (poolConexoes != null) {
+            return new ConexaoEmprestada(poolConexoes.obterConexao(), poolConexoes, null);
+        }
+        travaConexaoUnica.lock();
+        return new ConexaoEmprestada(conexaoBD, null, travaConexaoUnica);
+    }
+
+    /**
+     * Uma conexão usada por uma única operação. Ao ser fechada, a conexão volta ao pool;
+     * a conexão única, usada sem pool, permanece aberta e é liberada para a próxima operação.
+     */
+    private static final class ConexaoEmprestada implements AutoCloseable {
+        private final Connection conexao;
+        private final ConnectionDatabase pool;
+        private final ReentrantLock trava;
+
+        ConexaoEmprestada(Connection conexao, ConnectionDatabase pool, ReentrantLock trava) {
+            this.conexao = conexao;
+            this.pool = pool;
+            this.trava = trava;
+        }
+
+        @Override
+        public void close() {
+            if (pool != null) {
+                pool.devolverConexao(conexao);
+            }
+            if (trava != null) {
+                trava.unlock();
+            }
+        }
+    }
+}
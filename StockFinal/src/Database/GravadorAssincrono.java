@@ -0,0 +1,245 @@
+package Database;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+
+/**
+ * A classe GravadorAssincrono recebe os preços a serem salvos em uma fila limitada e os
+ * grava no banco de dados em lotes, em uma thread separada.
+ * <p>
+ * Um lote é gravado quando atinge o tamanho máximo ou quando o primeiro preço do lote
+ * espera pelo intervalo máximo. Se a fila estiver cheia, quem chama espera por espaço;
+ * ao encerrar, todos os preços restantes na fila são gravados.
+ * <p>
+ * Um lote que falha por um erro passageiro (conexão perdida, pool esgotado, deadlock) é
+ * gravado de novo, com esperas crescentes, até ser aceito; enquanto isso a fila enche e os
+ * novos preços deixam de ser confirmados. Como parte do lote pode ter sido gravada antes da
+ * falha, um preço pode ser gravado mais de uma vez, mas um preço confirmado não é perdido.
+ * Somente um lote recusado pelo banco por um erro permanente, ou que continua falhando
+ * durante o encerramento, é descartado.
+ */
+public class GravadorAssincrono {
+    /** Capacidade padrão da fila de preços pendentes. */
+    public static final int CAPACIDADE_PADRAO = 10_000;
+    /** Tamanho padrão de cada lote de inserções. */
+    public static final int TAMANHO_LOTE_PADRAO = 500;
+    /** Intervalo máximo padrão, em milissegundos, entre a chegada de um preço e sua gravação. */
+    public static final long INTERVALO_MAXIMO_PADRAO_MS = 200;
+
+    /** Espera máxima, em milissegundos, entre duas tentativas de gravar um lote. */
+    private static final long ESPERA_MAXIMA_REPETICAO_MS = 5_000;
+    /** Número de tentativas de gravar um lote depois que o gravador começa a ser encerrado. */
+    private static final int TENTATIVAS_ENCERRAMENTO = 3;
+
+    private static final Histograma LATENCIA_LOTE = Metricas.global().histograma("banco.insercao_lote");
+
+    private final Database database;
+    private final BlockingQueue<PrecoPendente> fila;
+    private final int tamanhoLote;
+    private final long intervaloMaximoMs;
+    private final Thread gravadora;
+    private final Thread ganchoEncerramento;
+    /** Impede que um preço entre na fila depois de {@link #encerrar()}. */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private volatile boolean executando = true;
+
+    /**
+     * Construtor da classe GravadorAssincrono. A thread de gravação é iniciada imediatamente.
+     *
+     * @param database          O serviço de banco de dados que grava os lotes.
+     * @param capacidade        O número máximo de preços aguardando gravação.
+     * @param tamanhoLote       O número máximo de preços gravados em um único lote.
+     * @param intervaloMaximoMs O tempo máximo, em milissegundos, que um preço aguarda na fila.
+     */
+    public GravadorAssincrono(Database database, int capacidade, int tamanhoLote, long intervaloMaximoMs) {
+        if (capacidade <= 0 || tamanhoLote <= 0 || intervaloMaximoMs <= 0) {
+            throw new IllegalArgumentException("Capacidade, tamanho do lote e intervalo devem ser positivos");
+        }
+        this.database = database;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMaximoMs = intervaloMaximoMs;
+        this.gravadora = new Thread(this::gravarContinuamente, "gravador-assincrono");
+        this.ganchoEncerramento = new Thread(this::encerrar, "gravador-assincrono-encerramento");
+        gravadora.start();
+        Runtime.getRuntime().addShutdownHook(ganchoEncerramento);
+    }
+
+    /**
+     * Coloca um preço na fila de gravação. Se a fila estiver cheia, aguarda até haver espaço.
+     *
+     * @param ticker O código da ação.
+     * @param preco  O preço da ação, em ponto fixo.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda espaço na fila.
+     * @throws IllegalStateException Se o gravador já tiver sido encerrado.
+     */
+    public void enfileirar(String ticker, long preco) throws InterruptedException {
+        enfileirar(ticker, preco, new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Coloca um preço na fila de gravação com a data e hora informadas.
+     * Se a fila estiver cheia, aguarda até haver espaço.
+     *
+     * @param ticker   O código da ação.
+     * @param preco    O preço da ação, em ponto fixo.
+     * @param dataHora A data e hora do preço.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda espaço na fila.
+     * @throws IllegalStateException Se o gravador já tiver sido encerrado.
+     */
+    public void enfileirar(String ticker, long preco, Timestamp dataHora) throws InterruptedException {
+        Lock leitura = trava.readLock();
+        leitura.lockInterruptibly();
+        try {
+            if (!executando) {
+                throw new IllegalStateException("Gravador assíncrono encerrado");
+            }
+            fila.put(new PrecoPendente(ticker, preco, dataHora));
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Retorna o número de preços aguardando gravação.
+     *
+     * @return O tamanho atual da fila.
+     */
+    public int pendentes() {
+        return fila.size();
+    }
+
+    /**
+     * Para de aceitar novos preços e aguarda a gravação de todos os preços da fila.
+     */
+    public void encerrar() {
+        Lock escrita = trava.writeLock();
+        escrita.lock();
+        try {
+            if (!executando) {
+                return;
+            }
+            executando = false;
+        } finally {
+            escrita.unlock();
+        }
+        try {
+            gravadora.join();
+            // Grava o que a thread de gravação não chegou a gravar, se ela terminou antes.
+            List<PrecoPendente> restantes = new ArrayList<>();
+            while (fila.drainTo(restantes, tamanhoLote) > 0) {
+                gravarLote(restantes);
+                restantes.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != ganchoEncerramento) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(ganchoEncerramento);
+            } catch (IllegalStateException e) {
+                // A JVM já está encerrando; o gancho não pode mais ser removido.
+            }
+        }
+    }
+
+    private void gravarContinuamente() {
+        List<PrecoPendente> lote = new ArrayList<>(tamanhoLote);
+        while (executando || !fila.isEmpty()) {
+            try {
+                PrecoPendente primeiro = fila.poll(intervaloMaximoMs, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMaximoMs);
+                while (lote.size() < tamanhoLote) {
+                    fila.drainTo(lote, tamanhoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanhoLote || restante <= 0 || !executando) {
+                        break;
+                    }
+                    PrecoPendente proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                }
+                gravarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Grava um lote, repetindo a gravação enquanto ela falhar por um erro passageiro.
+     *
+     * @param lote Os preços a gravar.
+     * @throws InterruptedException Se a thread for interrompida enquanto espera para repetir.
+     */
+    private void gravarLote(List<PrecoPendente> lote) throws InterruptedException {
+        long espera = intervaloMaximoMs;
+        for (int tentativa = 1; ; tentativa++) {
+            long inicio = System.nanoTime();
+            try {
+                database.salvarLoteNoBanco(lote);
+                LATENCIA_LOTE.registrarDesde(inicio);
+                return;
+            } catch (SQLException e) {
+                if (!podeRepetir(e) || (!executando && tentativa >= TENTATIVAS_ENCERRAMENTO)) {
+                    System.out.println("Lote de " + lote.size() + " preços descartado após " + tentativa
+                        + " tentativa(s): " + e.getMessage());
+                    return;
+                }
+                System.out.println("Erro ao gravar lote de " + lote.size() + " preços; nova tentativa em "
+                    + espera + " ms: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.out.println("Lote de " + lote.size() + " preços descartado: " + e.getMessage());
+                return;
+            }
+            Thread.sleep(espera);
+            espera = Math.min(2 * espera, ESPERA_MAXIMA_REPETICAO_MS);
+        }
+    }
+
+    /**
+     * Indica se a falha pode ser passageira. Erros permanentes, como dados recusados pela
+     * tabela, falhariam de novo a cada tentativa.
+     */
+    private static boolean podeRepetir(SQLException e) {
+        Throwable causa = e instanceof BatchUpdateException && e.getCause() instanceof SQLException ? e.getCause() : e;
+        return !(causa instanceof SQLNonTransientException) || causa instanceof SQLNonTransientConnectionException;
+    }
+
+    /**
+     * Um preço aguardando gravação, com o instante em que foi recebido.
+     */
+    static final class PrecoPendente {
+        final String ticker;
+        final long preco;
+        final Timestamp dataHora;
+
+        PrecoPendente(String ticker, long preco, Timestamp dataHora) {
+            this.ticker = ticker;
+            this.preco = preco;
+            this.dataHora = dataHora;
+        }
+    }
+}
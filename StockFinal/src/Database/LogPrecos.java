@@ -0,0 +1,332 @@
+package Database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import SOCKET.ProtocoloBinario;
+
+/**
+ * A classe LogPrecos é um {@link Armazenamento} local, sem banco de dados externo: os preços
+ * são acrescentados a segmentos de arquivo mapeados na memória.
+ * <p>
+ * Cada registro ocupa {@value #TAMANHO_REGISTRO} bytes:
+ * <pre>
+ *   long  instante   milissegundos desde a época Unix
+ *   long  preco      ponto fixo, como em {@link ProtocoloBinario}
+ *   byte  tamanho    tamanho do ticker
+ *   11    ticker     caracteres ASCII, completados com zeros
+ *   int   crc        CRC32 dos 28 bytes anteriores
+ * </pre>
+ * Quando um segmento enche, um novo é criado. Na abertura, os segmentos são percorridos
+ * para reconstruir o índice de registros de cada ticker; a leitura de um segmento para no
+ * primeiro registro vazio ou com CRC inválido, que é descartado e passa a ser a próxima
+ * posição de escrita. Os registros gravados sobrevivem à queda do processo; a queda do
+ * sistema operacional só preserva os registros anteriores à última chamada de
+ * {@link #sincronizar()}.
+ */
+public class LogPrecos implements Armazenamento {
+    /** Tamanho de cada registro, em bytes. */
+    public static final int TAMANHO_REGISTRO = 32;
+    /** Quantidade padrão de registros por segmento (64 MB). */
+    public static final int REGISTROS_POR_SEGMENTO_PADRAO = 1 << 21;
+    private static final int TAMANHO_MAXIMO_TICKER = 11;
+    private static final int POSICAO_CRC = 28;
+    private static final String PREFIXO_SEGMENTO = "precos-";
+    private static final String SUFIXO_SEGMENTO = ".log";
+
+    private final Path diretorio;
+    private final int registrosPorSegmento;
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, Indice> indices = new ConcurrentHashMap<>();
+    private final ReentrantLock trava = new ReentrantLock();
+    private final byte[] registro = new byte[TAMANHO_REGISTRO];
+    private final ByteBuffer montagem = ByteBuffer.wrap(registro);
+    private final CRC32 crc = new CRC32();
+    private int proximaPosicao;
+
+    /**
+     * Abre o log de preços com o tamanho de segmento padrão.
+     *
+     * @param diretorio O diretório dos segmentos; é criado se não existir.
+     * @throws IOException Se não for possível abrir ou recuperar os segmentos.
+     */
+    public LogPrecos(Path diretorio) throws IOException {
+        this(diretorio, REGISTROS_POR_SEGMENTO_PADRAO);
+    }
+
+    /**
+     * Abre o log de preços, recuperando os registros dos segmentos existentes.
+     *
+     * @param diretorio            O diretório dos segmentos; é criado se não existir.
+     * @param registrosPorSegmento A quantidade de registros de cada segmento.
+     * @throws IOException Se não for possível abrir ou recuperar os segmentos.
+     */
+    public LogPrecos(Path diretorio, int registrosPorSegmento) throws IOException {
+        if (registrosPorSegmento <= 0 || (long) registrosPorSegmento * TAMANHO_REGISTRO > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Quantidade de registros por segmento inválida: " + registrosPorSegmento);
+        }
+        this.diretorio = Files.createDirectories(diretorio);
+        this.registrosPorSegmento = registrosPorSegmento;
+        recuperar();
+    }
+
+    @Override
+    public void salvar(String ticker, long precoPontoFixo, long epochMillis) throws IOException {
+        byte[] bytesTicker = ticker.getBytes(StandardCharsets.US_ASCII);
+        if (bytesTicker.length == 0 || bytesTicker.length > TAMANHO_MAXIMO_TICKER) {
+            throw new IOException("Ticker inválido para o log de preços: " + ticker);
+        }
+
+        trava.lock();
+        try {
+            if (proximaPosicao == registrosPorSegmento) {
+                segmentos.get(segmentos.size() - 1).buffer.force();
+                abrirSegmento(segmentos.size());
+                proximaPosicao = 0;
+            }
+            Arrays.fill(registro, (byte) 0);
+            montagem.putLong(0, epochMillis);
+            montagem.putLong(8, precoPontoFixo);
+            montagem.put(16, (byte) bytesTicker.length);
+            System.arraycopy(bytesTicker, 0, registro, 17, bytesTicker.length);
+            crc.reset();
+            crc.update(registro, 0, POSICAO_CRC);
+            montagem.putInt(POSICAO_CRC, (int) crc.getValue());
+
+            int numeroSegmento = segmentos.size() - 1;
+            MappedByteBuffer buffer = segmentos.get(numeroSegmento).buffer;
+            int deslocamento = proximaPosicao * TAMANHO_REGISTRO;
+            for (int i = 0; i < TAMANHO_REGISTRO; i++) {
+                buffer.put(deslocamento + i, registro[i]);
+            }
+            long posicao = (long) numeroSegmento * registrosPorSegmento + proximaPosicao;
+            proximaPosicao++;
+            indices.computeIfAbsent(ticker, t -> new Indice()).adicionar(posicao);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public void sincronizar() {
+        trava.lock();
+        try {
+            segmentos.get(segmentos.size() - 1).buffer.force();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public String[] buscarUltimo(String ticker) {
+        Indice indice = indices.get(ticker);
+        int tamanho = indice != null ? indice.tamanho() : 0;
+        if (tamanho == 0) {
+            return null;
+        }
+        long posicao = indice.obter(tamanho - 1);
+        return new String[]{ticker, ProtocoloBinario.formatarPreco(lerPreco(posicao)),
+            ProtocoloBinario.formatarDataHora(lerInstante(posicao))};
+    }
+
+    @Override
+    public int transmitirUltimos(long desde, Consumer<String> saida) {
+        int enviados = 0;
+        for (Map.Entry<String, Indice> indice : indices.entrySet()) {
+            int tamanho = indice.getValue().tamanho();
+            if (tamanho == 0) {
+                continue;
+            }
+            long posicao = indice.getValue().obter(tamanho - 1);
+            long instante = lerInstante(posicao);
+            if (instante >= desde) {
+                saida.accept(indice.getKey() + ", " + ProtocoloBinario.formatarPreco(lerPreco(posicao)) + ", "
+                    + ProtocoloBinario.formatarDataHora(instante));
+                enviados++;
+            }
+        }
+        return enviados;
+    }
+
+    @Override
+    public String transmitirHistorico(String ticker, long inicio, long fim, int limite, String cursor,
+                                      Consumer<String> saida) {
+        Indice indice = indices.get(ticker);
+        if (indice == null) {
+            return null;
+        }
+        int anterior = indice.tamanho();
+        if (cursor != null) {
+            anterior = Integer.parseInt(cursor);
+            if (anterior < 0 || anterior > indice.tamanho()) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+        int enviados = 0;
+        for (int i = anterior - 1; i >= 0; i--) {
+            long posicao = indice.obter(i);
+            long instante = lerInstante(posicao);
+            if (instante < inicio || instante >= fim) {
+                continue;
+            }
+            if (enviados == limite) {
+                return String.valueOf(i + 1);
+            }
+            saida.accept(ProtocoloBinario.formatarDataHora(instante) + ": "
+                + ProtocoloBinario.formatarPreco(lerPreco(posicao)));
+            enviados++;
+        }
+        return null;
+    }
+
+    @Override
+    public void fechar() throws IOException {
+        trava.lock();
+        try {
+            for (Segmento segmento : segmentos) {
+                segmento.buffer.force();
+                segmento.canal.close();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private long lerInstante(long posicao) {
+        return segmentos.get((int) (posicao / registrosPorSegmento)).buffer
+            .getLong((int) (posicao % registrosPorSegmento) * TAMANHO_REGISTRO);
+    }
+
+    private long lerPreco(long posicao) {
+        return segmentos.get((int) (posicao / registrosPorSegmento)).buffer
+            .getLong((int) (posicao % registrosPorSegmento) * TAMANHO_REGISTRO + 8);
+    }
+
+    /**
+     * Abre os segmentos existentes, em ordem, e reconstrói o índice de cada ticker.
+     */
+    private void recuperar() throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> existentes = Files.newDirectoryStream(diretorio, PREFIXO_SEGMENTO + "*" + SUFIXO_SEGMENTO)) {
+            for (Path arquivo : existentes) {
+                arquivos.add(arquivo);
+            }
+        }
+        Collections.sort(arquivos);
+        for (int numero = 0; numero < arquivos.size(); numero++) {
+            if (!arquivos.get(numero).equals(caminhoSegmento(numero))) {
+                throw new IOException("Segmento ausente no log de preços: " + caminhoSegmento(numero));
+            }
+            abrirSegmento(numero);
+            proximaPosicao = lerSegmento(numero);
+        }
+        if (segmentos.isEmpty()) {
+            abrirSegmento(0);
+            proximaPosicao = 0;
+        }
+    }
+
+    /**
+     * Indexa os registros válidos de um segmento.
+     *
+     * @return A posição do primeiro registro vazio ou descartado.
+     */
+    private int lerSegmento(int numero) {
+        MappedByteBuffer buffer = segmentos.get(numero).buffer;
+        CRC32 verificador = new CRC32();
+        byte[] lido = new byte[TAMANHO_REGISTRO];
+        for (int posicao = 0; posicao < registrosPorSegmento; posicao++) {
+            int deslocamento = posicao * TAMANHO_REGISTRO;
+            for (int i = 0; i < TAMANHO_REGISTRO; i++) {
+                lido[i] = buffer.get(deslocamento + i);
+            }
+            int tamanhoTicker = lido[16];
+            if (tamanhoTicker == 0) {
+                return posicao;
+            }
+            verificador.reset();
+            verificador.update(lido, 0, POSICAO_CRC);
+            if (tamanhoTicker < 0 || tamanhoTicker > TAMANHO_MAXIMO_TICKER
+                    || (int) verificador.getValue() != ByteBuffer.wrap(lido).getInt(POSICAO_CRC)) {
+                System.out.println("Registro incompleto descartado no segmento " + numero + ", posição " + posicao);
+                for (int i = 0; i < TAMANHO_REGISTRO; i++) {
+                    buffer.put(deslocamento + i, (byte) 0);
+                }
+                return posicao;
+            }
+            String ticker = new String(lido, 17, tamanhoTicker, StandardCharsets.US_ASCII);
+            indices.computeIfAbsent(ticker, t -> new Indice())
+                   .adicionar((long) numero * registrosPorSegmento + posicao);
+        }
+        return registrosPorSegmento;
+    }
+
+    private void abrirSegmento(int numero) throws IOException {
+        Path caminho = caminhoSegmento(numero);
+        long tamanho = (long) registrosPorSegmento * TAMANHO_REGISTRO;
+        if (Files.exists(caminho) && Files.size(caminho) > tamanho) {
+            throw new IOException("Segmento maior que o esperado: " + caminho);
+        }
+        FileChannel canal = FileChannel.open(caminho, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentos.add(new Segmento(canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho)));
+    }
+
+    private Path caminhoSegmento(int numero) {
+        return diretorio.resolve(String.format("%s%08d%s", PREFIXO_SEGMENTO, numero, SUFIXO_SEGMENTO));
+    }
+
+    /**
+     * Um arquivo de segmento e o seu mapeamento na memória.
+     */
+    private static final class Segmento {
+        private final FileChannel canal;
+        private final MappedByteBuffer buffer;
+
+        Segmento(FileChannel canal, MappedByteBuffer buffer) {
+            this.canal = canal;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * As posições dos registros de um ticker, na ordem em que foram gravados.
+     */
+    private static final class Indice {
+        private long[] posicoes = new long[16];
+        private int tamanho;
+
+        synchronized void adicionar(long posicao) {
+            if (tamanho == posicoes.length) {
+                posicoes = Arrays.copyOf(posicoes, tamanho * 2);
+            }
+            posicoes[tamanho++] = posicao;
+        }
+
+        synchronized long obter(int indice) {
+            return posicoes[indice];
+        }
+
+        synchronized int tamanho() {
+            return tamanho;
+        }
+    }
+}
@@ -1,129 +1,343 @@
-package FACADE;
-
-import API.API_Client;
-import Database.ConnectionDatabase;
-import Database.Database;
-import SOCKET.Cache;
-import SOCKET.Client;
-import SOCKET.Server;
-import java.sql.Connection;
-
-/**
- * A classe Facade fornece uma interface simplificada para inicializar e acessar
- * diferentes componentes do sistema, como API, banco de dados, cache, servidor e cliente.
- */
-public class Facade {
-    private API_Client apiClient;
-    private ConnectionDatabase connectionDatabase;
-    private Database database;
-    private Cache cache;
-    private Server server;
-    private Client client;
-
-    private String apiBaseUrl;
-    private String apiToken;
-    private String dbHost;
-    private int dbPort;
-    private String dbName;
-    private String dbUser;
-    private String dbPassword;
-    private int serverPort;
-    private String serverAddress;
-    private int dbServicePort;
-
-    /**
-     * Construtor da classe Facade.
-     *
-     * @param apiBaseUrl    A URL base da API.
-     * @param apiToken      O token de autenticação para a API.
-     * @param dbHost        O endereço do host do banco de dados.
-     * @param dbPort        A porta de conexão do banco de dados.
-     * @param dbName        O nome do banco de dados.
-     * @param dbUser        O nome de usuário para o banco de dados.
-     * @param dbPassword    A senha para o banco de dados.
-     * @param serverPort    A porta onde o servidor escutará.
-     * @param serverAddress O endereço do servidor.
-     * @param dbServicePort A porta de serviço do banco de dados.
-     */
-    public Facade(String apiBaseUrl, String apiToken, String dbHost, int dbPort, String dbName, 
-                  String dbUser, String dbPassword, int serverPort, String serverAddress, int dbServicePort) {
-        this.apiBaseUrl = apiBaseUrl;
-        this.apiToken = apiToken;
-        this.dbHost = dbHost;
-        this.dbPort = dbPort;
-        this.dbName = dbName;
-        this.dbUser = dbUser;
-        this.dbPassword = dbPassword;
-        this.serverPort = serverPort;
-        this.serverAddress = serverAddress;
-        this.dbServicePort = dbServicePort;
-    }
-
-    /**
-     * Inicializa os componentes do sistema, como cliente da API, conexão com o banco de dados,
-     * cache, servidor e cliente de socket.
-     */
-    public void inicializar() {
-        apiClient = new API_Client(apiBaseUrl, apiToken);
-        connectionDatabase = new ConnectionDatabase(dbHost, dbPort, dbName, dbUser, dbPassword);
-        Connection dbConnection = connectionDatabase.conectar();
-        database = new Database(dbConnection, dbServicePort);
-        cache = new Cache();
-        server = new Server(cache, serverPort, dbHost, dbServicePort, apiBaseUrl, apiToken);
-        client = new Client(serverAddress, serverPort);
-    }
-
-    /**
-     * Retorna o cliente da API.
-     *
-     * @return O cliente da API.
-     */
-    public API_Client getApiClient() {
-        return apiClient;
-    }
-
-    /**
-     * Retorna a conexão com o banco de dados.
-     *
-     * @return A conexão com o banco de dados.
-     */
-    public ConnectionDatabase getConnectionDatabase() {
-        return connectionDatabase;
-    }
-
-    /**
-     * Retorna o banco de dados.
-     *
-     * @return O banco de dados.
-     */
-    public Database getDatabase() {
-        return database;
-    }
-
-    /**
-     * Retorna o cache.
-     *
-     * @return O cache.
-     */
-    public Cache getCache() {
-        return cache;
-    }
-
-    /**
-     * Retorna o servidor.
-     *
-     * @return O servidor.
-     */
-    public Server getServer() {
-        return server;
-    }
-
-    /**
-     * Retorna o cliente de socket.
-     *
-     * @return O cliente de socket.
-     */
-    public Client getClient() {
-        return client;
-    }
-}
+package FACADE;
+
+import API.API_Client;
+import API.GravadorCotacoes;
+import API.ProvedorCotacoes;
+import API.ProvedorHttp;
+import API.ReprodutorCotacoes;
+import Database.ConnectionDatabase;
+import Database.Database;
+import Database.GravadorAssincrono;
+import Database.LogPrecos;
+import METRICAS.Metricas;
+import SOCKET.Cache;
+import SOCKET.Client;
+import SOCKET.Server;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A classe Facade fornece uma interface simplificada para inicializar e acessar
+ * diferentes componentes do sistema, como API, banco de dados, cache, servidor e cliente.
+ */
+public class Facade {
+    /** Antecedência, em milissegundos, com que os preços mais procurados são renovados antes de expirar. */
+    private static final long ANTECEDENCIA_RENOVACAO_MS = 5_000;
+    /** Número máximo de preços renovados em segundo plano por minuto. */
+    private static final int ORCAMENTO_RENOVACAO_POR_MINUTO = 600;
+    /** Idade máxima padrão, em milissegundos, dos preços carregados no cache na partida do servidor. */
+    public static final long IDADE_MAXIMA_AQUECIMENTO_PADRAO_MS = Cache.TTL_PADRAO_MS;
+
+    private API_Client apiClient;
+    private ConnectionDatabase connectionDatabase;
+    private Database database;
+    private Cache cache;
+    private Server server;
+    private Client client;
+
+    private String apiBaseUrl;
+    private String apiToken;
+    private String dbHost;
+    private int dbPort;
+    private String dbName;
+    private String dbUser;
+    private String dbPassword;
+    private int serverPort;
+    private String serverAddress;
+    private int dbServicePort;
+    private ModoExecucao modoExecucao = ModoExecucao.PLATAFORMA;
+    private ExecutorService executorConexoes;
+    private Path diretorioArmazenamento;
+    private long intervaloRelatorioMetricasMs;
+    private ModoCotacoes modoCotacoes = ModoCotacoes.AO_VIVO;
+    private Path arquivoCotacoes;
+    private long latenciaReproducaoMs;
+    private long idadeMaximaAquecimentoMs = IDADE_MAXIMA_AQUECIMENTO_PADRAO_MS;
+    private Path arquivoSnapshotCache;
+    private long intervaloSnapshotCacheMs;
+
+    /**
+     * Construtor da classe Facade.
+     *
+     * @param apiBaseUrl    A URL base da API.
+     * @param apiToken      O token de autenticação para a API.
+     * @param dbHost        O endereço do host do banco de dados.
+     * @param dbPort        A porta de conexão do banco de dados.
+     * @param dbName        O nome do banco de dados.
+     * @param dbUser        O nome de usuário para o banco de dados.
+     * @param dbPassword    A senha para o banco de dados.
+     * @param serverPort    A porta onde o servidor escutará.
+     * @param serverAddress O endereço do servidor.
+     * @param dbServicePort A porta de serviço do banco de dados.
+     */
+    public Facade(String apiBaseUrl, String apiToken, String dbHost, int dbPort, String dbName, 
+                  String dbUser, String dbPassword, int serverPort, String serverAddress, int dbServicePort) {
+        this.apiBaseUrl = apiBaseUrl;
+        this.apiToken = apiToken;
+        this.dbHost = dbHost;
+        this.dbPort = dbPort;
+        this.dbName = dbName;
+        this.dbUser = dbUser;
+        this.dbPassword = dbPassword;
+        this.serverPort = serverPort;
+        this.serverAddress = serverAddress;
+        this.dbServicePort = dbServicePort;
+    }
+
+    /**
+     * Inicializa os componentes do sistema, como cliente da API, conexão com o banco de dados,
+     * cache, servidor e cliente de socket.
+     *
+     * @throws UncheckedIOException Se o armazenamento local ou o arquivo de cotações estiver
+     *                              definido e não puder ser aberto.
+     */
+    public void inicializar() {
+        apiClient = new API_Client(criarProvedorCotacoes());
+        if (diretorioArmazenamento != null) {
+            try {
+                database = new Database(new LogPrecos(diretorioArmazenamento), dbServicePort);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao abrir o armazenamento local", e);
+            }
+        } else {
+            connectionDatabase = new ConnectionDatabase(dbHost, dbPort, dbName, dbUser, dbPassword);
+            connectionDatabase.iniciarPool(ConnectionDatabase.TAMANHO_POOL_PADRAO,
+                ConnectionDatabase.TEMPO_ESPERA_POOL_PADRAO_MS);
+            database = new Database(connectionDatabase, dbServicePort);
+        }
+        database.ativarGravacaoAssincrona(GravadorAssincrono.CAPACIDADE_PADRAO,
+            GravadorAssincrono.TAMANHO_LOTE_PADRAO, GravadorAssincrono.INTERVALO_MAXIMO_PADRAO_MS);
+        cache = new Cache();
+        server = new Server(cache, serverPort, dbHost, dbServicePort, apiClient);
+        server.iniciarRenovacao(ANTECEDENCIA_RENOVACAO_MS, ORCAMENTO_RENOVACAO_POR_MINUTO);
+        // Com um snapshot recente do cache, o aquecimento pelo banco de dados é dispensado.
+        server.setAquecimentoCache(carregarSnapshotCache() > 0 ? 0 : idadeMaximaAquecimentoMs);
+        if (arquivoSnapshotCache != null) {
+            cache.iniciarSnapshotPeriodico(arquivoSnapshotCache, intervaloSnapshotCacheMs);
+        }
+        client = new Client(serverAddress, serverPort);
+
+        if (modoExecucao == ModoExecucao.VIRTUAL) {
+            executorConexoes = criarExecutorVirtual();
+            server.setExecutorConexoes(executorConexoes);
+            database.setExecutorConexoes(executorConexoes);
+        }
+        if (intervaloRelatorioMetricasMs > 0) {
+            Metricas.global().iniciarRelatorioPeriodico(intervaloRelatorioMetricasMs, System.out::println);
+        }
+    }
+
+    /**
+     * Define como o servidor e o serviço de banco de dados executam cada conexão.
+     * Deve ser chamado antes de {@link #inicializar()}.
+     *
+     * @param modoExecucao O modo de execução das conexões.
+     */
+    public void setModoExecucao(ModoExecucao modoExecucao) {
+        this.modoExecucao = modoExecucao;
+    }
+
+    /**
+     * Faz o serviço de banco de dados gravar os preços em um {@link LogPrecos} local, no
+     * diretório informado, em vez do MySQL. Deve ser chamado antes de {@link #inicializar()}.
+     *
+     * @param diretorioArmazenamento O diretório do log de preços, ou {@code null} para usar o MySQL.
+     */
+    public void setDiretorioArmazenamento(Path diretorioArmazenamento) {
+        this.diretorioArmazenamento = diretorioArmazenamento;
+    }
+
+    /**
+     * Faz o relatório das métricas de desempenho ser impresso na saída padrão em intervalos
+     * regulares. Deve ser chamado antes de {@link #inicializar()}.
+     *
+     * @param intervaloRelatorioMetricasMs O intervalo entre os relatórios, em milissegundos,
+     *                                     ou 0 para não imprimir relatórios.
+     */
+    public void setIntervaloRelatorioMetricas(long intervaloRelatorioMetricasMs) {
+        this.intervaloRelatorioMetricasMs = intervaloRelatorioMetricasMs;
+    }
+
+    /**
+     * Define a idade máxima dos preços que o servidor carrega do banco de dados no cache
+     * antes de atender as conexões. Deve ser chamado antes de {@link #inicializar()}.
+     *
+     * @param idadeMaximaAquecimentoMs A idade máxima, em milissegundos, ou 0 para iniciar o
+     *                                 servidor com o cache vazio. O padrão é
+     *                                 {@value #IDADE_MAXIMA_AQUECIMENTO_PADRAO_MS}.
+     */
+    public void setAquecimentoCache(long idadeMaximaAquecimentoMs) {
+        this.idadeMaximaAquecimentoMs = idadeMaximaAquecimentoMs;
+    }
+
+    /**
+     * Faz o cache gravar periodicamente um snapshot das suas entradas no arquivo informado e
+     * carregá-lo na inicialização, antes de o servidor atender as conexões. Deve ser chamado
+     * antes de {@link #inicializar()}.
+     *
+     * @param arquivoSnapshotCache     O arquivo do snapshot, ou {@code null} para não usar snapshot.
+     * @param intervaloSnapshotCacheMs O intervalo entre as gravações, em milissegundos.
+     */
+    public void setSnapshotCache(Path arquivoSnapshotCache, long intervaloSnapshotCacheMs) {
+        if (arquivoSnapshotCache != null && intervaloSnapshotCacheMs <= 0) {
+            throw new IllegalArgumentException("O intervalo do snapshot deve ser positivo");
+        }
+        this.arquivoSnapshotCache = arquivoSnapshotCache;
+        this.intervaloSnapshotCacheMs = intervaloSnapshotCacheMs;
+    }
+
+    /**
+     * Carrega no cache o snapshot definido em {@link #setSnapshotCache(Path, long)}, se houver.
+     * Um snapshot inválido é ignorado.
+     *
+     * @return A quantidade de entradas carregadas.
+     */
+    private int carregarSnapshotCache() {
+        if (arquivoSnapshotCache == null) {
+            return 0;
+        }
+        long inicio = System.nanoTime();
+        try {
+            int carregadas = cache.carregarSnapshot(arquivoSnapshotCache);
+            System.out.println(carregadas + " preços carregados do snapshot do cache em "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            return carregadas;
+        } catch (IOException e) {
+            System.out.println("Snapshot do cache ignorado: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Define de onde o cliente da API obtém as cotações. Deve ser chamado antes de
+     * {@link #inicializar()}.
+     *
+     * @param modoCotacoes    O modo de obtenção das cotações.
+     * @param arquivoCotacoes O arquivo onde as cotações são gravadas, no modo
+     *                        {@link ModoCotacoes#GRAVACAO}, ou de onde são lidas, no modo
+     *                        {@link ModoCotacoes#REPRODUCAO}; ignorado no modo {@link ModoCotacoes#AO_VIVO}.
+     */
+    public void setModoCotacoes(ModoCotacoes modoCotacoes, Path arquivoCotacoes) {
+        if (modoCotacoes != ModoCotacoes.AO_VIVO && arquivoCotacoes == null) {
+            throw new IllegalArgumentException("O arquivo de cotações deve ser informado no modo " + modoCotacoes);
+        }
+        this.modoCotacoes = modoCotacoes;
+        this.arquivoCotacoes = arquivoCotacoes;
+    }
+
+    /**
+     * Define a latência sintética das consultas no modo {@link ModoCotacoes#REPRODUCAO}.
+     * Deve ser chamado antes de {@link #inicializar()}.
+     *
+     * @param latenciaReproducaoMs O tempo, em milissegundos, que cada consulta leva para ser
+     *                             concluída, ou 0 para concluir na hora.
+     */
+    public void setLatenciaReproducao(long latenciaReproducaoMs) {
+        this.latenciaReproducaoMs = latenciaReproducaoMs;
+    }
+
+    /**
+     * Cria o provedor das cotações de acordo com o modo definido.
+     *
+     * @return O provedor das cotações.
+     * @throws UncheckedIOException Se o arquivo de cotações não puder ser aberto.
+     */
+    private ProvedorCotacoes criarProvedorCotacoes() {
+        try {
+            switch (modoCotacoes) {
+                case GRAVACAO:
+                    return new GravadorCotacoes(new ProvedorHttp(apiBaseUrl, apiToken), arquivoCotacoes);
+                case REPRODUCAO:
+                    return new ReprodutorCotacoes(arquivoCotacoes, latenciaReproducaoMs);
+                default:
+                    return new ProvedorHttp(apiBaseUrl, apiToken);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o arquivo de cotações " + arquivoCotacoes, e);
+        }
+    }
+
+    /**
+     * Cria um executor que inicia uma thread virtual por tarefa.
+     * O método é obtido por reflexão para que o projeto continue compilando em Java 11;
+     * se as threads virtuais não estiverem disponíveis, é usado um pool de threads de
+     * plataforma sob demanda.
+     *
+     * @return O executor das conexões.
+     */
+    private ExecutorService criarExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            System.out.println("Threads virtuais indisponíveis nesta JVM; usando threads de plataforma.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Retorna o cliente da API.
+     *
+     * @return O cliente da API.
+     */
+    public API_Client getApiClient() {
+        return apiClient;
+    }
+
+    /**
+     * Retorna a conexão com o banco de dados.
+     *
+     * @return A conexão com o banco de dados, ou {@code null} se o armazenamento local estiver em uso.
+     */
+    public ConnectionDatabase getConnectionDatabase() {
+        return connectionDatabase;
+    }
+
+    /**
+     * Retorna o banco de dados.
+     *
+     * @return O banco de dados.
+     */
+    public Database getDatabase() {
+        return database;
+    }
+
+    /**
+     * Retorna o cache.
+     *
+     * @return O cache.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Retorna o servidor.
+     *
+     * @return O servidor.
+     */
+    public Server getServer() {
+        return server;
+    }
+
+    /**
+     * Retorna o executor das conexões no modo {@link ModoExecucao#VIRTUAL}.
+     *
+     * @return O executor das conexões, ou {@code null} no modo {@link ModoExecucao#PLATAFORMA}.
+     */
+    public ExecutorService getExecutorConexoes() {
+        return executorConexoes;
+    }
+
+    /**
+     * Retorna o cliente de socket.
+     *
+     * @return O cliente de socket.
+     */
+    public Client getClient() {
+        return client;
+    }
+}
@@ -0,0 +1,23 @@
+package FACADE;
+
+/**
+ * Define de onde o cliente da API obtém as cotações.
+ */
+public enum ModoCotacoes {
+    /**
+     * Comportamento original: as cotações são consultadas na API HTTP.
+     */
+    AO_VIVO,
+
+    /**
+     * As cotações são consultadas na API HTTP, e as respostas são acrescentadas a um arquivo
+     * local, que pode ser reproduzido depois no modo {@link #REPRODUCAO}.
+     */
+    GRAVACAO,
+
+    /**
+     * As cotações são lidas de um arquivo gravado no modo {@link #GRAVACAO}, sem acessar a
+     * rede, opcionalmente com uma latência sintética.
+     */
+    REPRODUCAO
+}
@@ -0,0 +1,18 @@
+package FACADE;
+
+/**
+ * Define como o servidor e o serviço de banco de dados executam cada conexão.
+ */
+public enum ModoExecucao {
+    /**
+     * Comportamento original: o servidor e o serviço de banco de dados criam uma thread de
+     * plataforma por conexão.
+     */
+    PLATAFORMA,
+
+    /**
+     * Cada conexão, nos dois serviços, é executada em uma thread virtual. Requer Java 21 ou
+     * superior; em versões anteriores é usado um pool de threads de plataforma sob demanda.
+     */
+    VIRTUAL
+}
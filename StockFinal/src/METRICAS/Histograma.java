@@ -0,0 +1,151 @@
+package METRICAS;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A classe Histograma acumula durações, em nanossegundos, para o cálculo de percentis.
+ * <p>
+ * As durações são contadas em faixas de largura crescente: cada potência de dois é dividida
+ * em {@value #SUBFAIXAS} faixas iguais, de modo que o erro de um percentil é de no máximo
+ * 1/{@value #SUBFAIXAS} do valor, qualquer que seja a escala. O registro de uma duração
+ * apenas incrementa contadores atômicos, sem bloqueio e sem criar objetos, e pode ser feito
+ * por várias threads ao mesmo tempo; os percentis são calculados sobre uma cópia das faixas.
+ */
+public final class Histograma {
+    private static final int BITS_SUBFAIXA = 5;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    /** Maior potência de dois distinguida; durações a partir de 2<sup>41</sup> ns (cerca de 36 minutos) ficam na última faixa. */
+    private static final int EXPOENTE_MAXIMO = 40;
+    private static final int FAIXAS = (EXPOENTE_MAXIMO - BITS_SUBFAIXA + 2) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra uma duração. Durações negativas são contadas como zero.
+     *
+     * @param duracaoNanos A duração, em nanossegundos.
+     */
+    public void registrar(long duracaoNanos) {
+        long duracao = Math.max(0, duracaoNanos);
+        contagens.incrementAndGet(faixa(duracao));
+        soma.add(duracao);
+        long atual = maximo.get();
+        while (duracao > atual && !maximo.compareAndSet(atual, duracao)) {
+            atual = maximo.get();
+        }
+    }
+
+    /**
+     * Registra o tempo decorrido desde um instante obtido com {@link System#nanoTime()}.
+     *
+     * @param inicioNanos O instante inicial.
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Retorna o número de durações registradas.
+     *
+     * @return A quantidade de registros.
+     */
+    public long quantidade() {
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            total += contagens.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a maior duração registrada.
+     *
+     * @return A duração máxima, em nanossegundos, ou 0 se não houver registros.
+     */
+    public long maximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Calcula um percentil das durações registradas. O valor devolvido é o limite superior
+     * da faixa em que o percentil cai, nunca maior que a duração máxima.
+     *
+     * @param percentual O percentil, de 0 a 100; por exemplo, {@code 99.9}.
+     * @return A duração do percentil, em nanossegundos, ou 0 se não houver registros.
+     */
+    public long percentil(double percentual) {
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        return percentil(copia, total, percentual);
+    }
+
+    private long percentil(long[] copia, long total, double percentual) {
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentual)) / 100));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Descreve as durações registradas em microssegundos: quantidade, média, percentis 50,
+     * 90, 99 e 99,9 e máximo.
+     *
+     * @return O resumo, por exemplo {@code n=120 media=85us p50=70us p90=130us p99=410us p999=900us max=912us}.
+     */
+    @Override
+    public String toString() {
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        return "n=" + total
+            + " media=" + (total > 0 ? soma.sum() / total / 1_000 : 0) + "us"
+            + " p50=" + percentil(copia, total, 50) / 1_000 + "us"
+            + " p90=" + percentil(copia, total, 90) / 1_000 + "us"
+            + " p99=" + percentil(copia, total, 99) / 1_000 + "us"
+            + " p999=" + percentil(copia, total, 99.9) / 1_000 + "us"
+            + " max=" + maximo.get() / 1_000 + "us";
+    }
+
+    private static int faixa(long duracao) {
+        if (duracao < SUBFAIXAS) {
+            return (int) duracao;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(duracao);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return FAIXAS - 1;
+        }
+        int deslocamento = expoente - BITS_SUBFAIXA;
+        return (deslocamento + 1) * SUBFAIXAS + (int) ((duracao >>> deslocamento) & (SUBFAIXAS - 1));
+    }
+
+    private static long limiteSuperior(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        if (faixa == FAIXAS - 1) {
+            return Long.MAX_VALUE;
+        }
+        int deslocamento = faixa / SUBFAIXAS - 1;
+        long inicio = (long) (SUBFAIXAS + faixa % SUBFAIXAS) << deslocamento;
+        return inicio + (1L << deslocamento) - 1;
+    }
+}
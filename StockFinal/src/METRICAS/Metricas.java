@@ -0,0 +1,130 @@
+package METRICAS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A classe Metricas reúne, por nome, as métricas de desempenho do sistema: contadores,
+ * histogramas de latência ({@link Histograma}) e medidores, que leem um valor atual como o
+ * tamanho de uma fila.
+ * <p>
+ * Os componentes obtêm os seus contadores e histogramas uma única vez, ao serem criados, e
+ * depois apenas os incrementam; o registro não cria objetos nem usa bloqueio. O relatório
+ * lista todas as métricas em ordem de nome e é enviado pelo comando {@code STATS} do
+ * servidor e, opcionalmente, impresso periodicamente.
+ */
+public final class Metricas {
+    private static final Metricas GLOBAL = new Metricas();
+
+    private final long inicio = System.nanoTime();
+    private final ConcurrentMap<String, LongAdder> contadores = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Histograma> histogramas = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LongSupplier> medidores = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService relatorioPeriodico;
+
+    /**
+     * Retorna as métricas do processo, compartilhadas pelo servidor, pelo cliente da API e
+     * pelo serviço de banco de dados.
+     *
+     * @return As métricas do processo.
+     */
+    public static Metricas global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Retorna o contador com o nome informado, criando-o se ainda não existir.
+     *
+     * @param nome O nome do contador, por exemplo {@code "api.chamadas"}.
+     * @return O contador.
+     */
+    public LongAdder contador(String nome) {
+        return contadores.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    /**
+     * Retorna o histograma com o nome informado, criando-o se ainda não existir.
+     *
+     * @param nome O nome do histograma, por exemplo {@code "api.latencia"}.
+     * @return O histograma.
+     */
+    public Histograma histograma(String nome) {
+        return histogramas.computeIfAbsent(nome, n -> new Histograma());
+    }
+
+    /**
+     * Registra um medidor, substituindo o medidor anterior de mesmo nome. A fonte é lida a
+     * cada relatório, e por isso deve ser rápida e não bloquear.
+     *
+     * @param nome  O nome do medidor, por exemplo {@code "cache.tamanho"}.
+     * @param fonte A fonte do valor atual.
+     */
+    public void medidor(String nome, LongSupplier fonte) {
+        medidores.put(nome, fonte);
+    }
+
+    /**
+     * Monta o relatório das métricas: o tempo de atividade, os contadores e medidores com
+     * os seus valores e os histogramas com quantidade, média, percentis e máximo.
+     *
+     * @return As linhas do relatório, no formato {@code <nome> <valor>}.
+     */
+    public List<String> relatorio() {
+        List<String> linhas = new ArrayList<>();
+        linhas.add("tempo_ativo_s " + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio));
+        for (Map.Entry<String, LongAdder> contador : contadores.entrySet()) {
+            linhas.add(contador.getKey() + " " + contador.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> medidor : medidores.entrySet()) {
+            try {
+                linhas.add(medidor.getKey() + " " + medidor.getValue().getAsLong());
+            } catch (RuntimeException e) {
+                linhas.add(medidor.getKey() + " erro: " + e.getMessage());
+            }
+        }
+        for (Map.Entry<String, Histograma> histograma : histogramas.entrySet()) {
+            linhas.add(histograma.getKey() + " " + histograma.getValue());
+        }
+        return linhas;
+    }
+
+    /**
+     * Passa a enviar o relatório a um destino em intervalos regulares, em uma thread
+     * própria. Um relatório periódico anterior é interrompido.
+     *
+     * @param intervaloMs O intervalo entre os relatórios, em milissegundos.
+     * @param destino     O destino de cada linha do relatório.
+     */
+    public synchronized void iniciarRelatorioPeriodico(long intervaloMs, Consumer<String> destino) {
+        if (intervaloMs <= 0) {
+            throw new IllegalArgumentException("O intervalo deve ser positivo");
+        }
+        pararRelatorioPeriodico();
+        relatorioPeriodico = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "relatorio-metricas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relatorioPeriodico.scheduleAtFixedRate(() -> relatorio().forEach(destino),
+            intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrompe o relatório periódico, se houver.
+     */
+    public synchronized void pararRelatorioPeriodico() {
+        if (relatorioPeriodico != null) {
+            relatorioPeriodico.shutdown();
+            relatorioPeriodico = null;
+        }
+    }
+}
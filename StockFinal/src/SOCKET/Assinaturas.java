@@ -0,0 +1,234 @@
+package SOCKET;
+
+import API.Preco;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A classe Assinaturas envia aos clientes assinantes as mudanças de preço do {@link Cache}.
+ * <p>
+ * Cada mudança é codificada uma única vez, na linha {@code ATUALIZACAO <ticker> <preço>}, e
+ * entregue a cada assinante do ticker. Cada assinante tem uma fila de saída própria que guarda
+ * apenas a atualização mais recente de cada ticker: um cliente lento recebe o preço atual, e
+ * não todos os preços intermediários, e a fila nunca passa do número de tickers assinados.
+ */
+class Assinaturas implements Cache.OuvintePreco {
+    /** Número máximo de tickers assinados por conexão. */
+    static final int MAXIMO_TICKERS_POR_ASSINANTE = 1_000;
+
+    private final ConcurrentMap<String, Set<Assinante>> porTicker = new ConcurrentHashMap<>();
+    private final Charset charset = Charset.defaultCharset();
+    private final String separadorLinha = System.lineSeparator();
+
+    @Override
+    public void precoAlterado(String ticker, long preco) {
+        Set<Assinante> assinantes = porTicker.get(ticker);
+        if (assinantes == null || assinantes.isEmpty()) {
+            return;
+        }
+        byte[] linha = codificar(ticker, preco);
+        for (Assinante assinante : assinantes) {
+            assinante.publicar(ticker, linha);
+        }
+    }
+
+    /**
+     * Inclui tickers nas assinaturas de um assinante.
+     *
+     * @param assinante O assinante.
+     * @param tickers   Os tickers a assinar.
+     * @return {@code false} se o limite de tickers por assinante seria ultrapassado; nesse
+     *         caso nenhum ticker é incluído.
+     */
+    boolean assinar(Assinante assinante, Collection<String> tickers) {
+        synchronized (assinante) {
+            Set<String> novos = new HashSet<>(tickers);
+            novos.removeAll(assinante.tickers);
+            if (assinante.tickers.size() + novos.size() > MAXIMO_TICKERS_POR_ASSINANTE) {
+                return false;
+            }
+            for (String ticker : novos) {
+                assinante.tickers.add(ticker);
+                // A inclusão acontece dentro do compute: fora dele, um cancelar de outro
+                // assinante poderia esvaziar e descartar o conjunto antes da inclusão
+                porTicker.compute(ticker, (t, assinantes) -> {
+                    if (assinantes == null) {
+                        assinantes = ConcurrentHashMap.newKeySet();
+                    }
+                    assinantes.add(assinante);
+                    return assinantes;
+                });
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remove tickers das assinaturas de um assinante.
+     *
+     * @param assinante O assinante.
+     * @param tickers   Os tickers a cancelar, ou {@code null} para cancelar todos.
+     */
+    void cancelar(Assinante assinante, Collection<String> tickers) {
+        synchronized (assinante) {
+            List<String> removidos = new ArrayList<>(tickers != null ? tickers : assinante.tickers);
+            for (String ticker : removidos) {
+                assinante.tickers.remove(ticker);
+                porTicker.computeIfPresent(ticker, (t, assinantes) -> {
+                    assinantes.remove(assinante);
+                    return assinantes.isEmpty() ? null : assinantes;
+                });
+            }
+        }
+    }
+
+    /**
+     * Retorna os tickers que têm ao menos um assinante.
+     *
+     * @return Os tickers assinados.
+     */
+    Set<String> tickersAssinados() {
+        return porTicker.keySet();
+    }
+
+    /**
+     * Codifica a linha de atualização de um preço.
+     *
+     * @param ticker O código da ação.
+     * @param preco  O preço da ação, em ponto fixo.
+     * @return A linha codificada, com o separador de linha.
+     */
+    byte[] codificar(String ticker, long preco) {
+        return ("ATUALIZACAO " + ticker + " " + Preco.formatar(preco) + separadorLinha).getBytes(charset);
+    }
+
+    /**
+     * O destino das atualizações de um assinante.
+     */
+    interface Destino {
+        /**
+         * Envia linhas já codificadas ao cliente. Pode bloquear até que o cliente as receba.
+         *
+         * @param dados As linhas codificadas.
+         * @throws IOException Se não for possível enviar os dados.
+         */
+        void enviar(byte[] dados) throws IOException;
+    }
+
+    /**
+     * Um cliente assinante, com a sua fila de atualizações pendentes. O método {@link #run()}
+     * envia as atualizações até que o assinante seja encerrado, e deve rodar em uma thread própria.
+     * A fila é protegida por um {@link ReentrantLock}, e não por um monitor, para que a espera
+     * por atualizações não prenda a thread portadora quando o assinante roda em uma thread virtual.
+     */
+    static final class Assinante implements Runnable {
+        private final Destino destino;
+        private final Set<String> tickers = ConcurrentHashMap.newKeySet();
+        private final Map<String, byte[]> pendentes = new LinkedHashMap<>();
+        private final ReentrantLock trava = new ReentrantLock();
+        private final Condition haPendentes = trava.newCondition();
+        private boolean encerrado;
+        private long substituidas;
+
+        /**
+         * Construtor da classe Assinante.
+         *
+         * @param destino O destino das atualizações.
+         */
+        Assinante(Destino destino) {
+            this.destino = destino;
+        }
+
+        /**
+         * Coloca uma atualização na fila. Se já houver uma atualização pendente do mesmo
+         * ticker, ela é substituída.
+         */
+        void publicar(String ticker, byte[] linha) {
+            trava.lock();
+            try {
+                if (encerrado) {
+                    return;
+                }
+                if (pendentes.put(ticker, linha) != null) {
+                    substituidas++;
+                }
+                haPendentes.signal();
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /**
+         * Retorna o número de atualizações descartadas por terem sido substituídas por uma
+         * mais recente antes do envio.
+         *
+         * @return O número de atualizações substituídas.
+         */
+        long substituidas() {
+            trava.lock();
+            try {
+                return substituidas;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /**
+         * Para de enviar atualizações e descarta as pendentes.
+         */
+        void encerrar() {
+            trava.lock();
+            try {
+                encerrado = true;
+                pendentes.clear();
+                haPendentes.signal();
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            ByteArrayOutputStream lote = new ByteArrayOutputStream();
+            try {
+                while (true) {
+                    trava.lock();
+                    try {
+                        while (pendentes.isEmpty() && !encerrado) {
+                            haPendentes.await();
+                        }
+                        if (encerrado) {
+                            return;
+                        }
+                        for (byte[] linha : pendentes.values()) {
+                            lote.write(linha, 0, linha.length);
+                        }
+                        pendentes.clear();
+                    } finally {
+                        trava.unlock();
+                    }
+                    destino.enviar(lote.toByteArray());
+                    lote.reset();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.out.println("Erro ao enviar atualizações ao assinante: " + e.getMessage());
+            } finally {
+                encerrar();
+            }
+        }
+    }
+}
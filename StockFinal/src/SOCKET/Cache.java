@@ -1,40 +1,587 @@
-package SOCKET;
-
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * A classe Cache é responsável por armazenar e gerenciar os preços das ações em um cache local.
- */
-public class Cache {
-    private Map<String, String> cache;
-
-    /**
-     * Construtor da classe Cache.
-     * Inicializa o cache como um HashMap.
-     */
-    public Cache() {
-        this.cache = new HashMap<>();
-    }
-
-    /**
-     * Obtém o preço de uma ação a partir do cache.
-     *
-     * @param ticker O código da ação.
-     * @return O preço da ação, ou {@code null} se o ticker não estiver presente no cache.
-     */
-    public String obterPreco(String ticker) {
-        return cache.get(ticker);
-    }
-
-    /**
-     * Atualiza o cache com o preço de uma ação.
-     * Se o ticker já existir no cache, o preço será atualizado.
-     *
-     * @param ticker O código da ação.
-     * @param preco  O preço da ação.
-     */
-    public void atualizarCache(String ticker, String preco) {
-        cache.put(ticker, preco);
-    }
-}
+package SOCKET;
+
+import API.Preco;
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A classe Cache é responsável por armazenar e gerenciar os preços das ações em um cache local.
+ * <p>
+ * O cache pode ser acessado ao mesmo tempo por várias threads. As leituras não usam bloqueio,
+ * cada entrada expira após um tempo de vida (TTL) e o número de entradas é limitado. Quando o
+ * limite é ultrapassado, a entrada menos usada recentemente é removida (algoritmo CLOCK, uma
+ * aproximação de LRU). Entradas expiradas são removidas quando lidas e, a cada gravação, o
+ * relógio avança uma posição e remove a entrada apontada se ela tiver expirado; assim, um
+ * cache que fica abaixo do limite também descarta as entradas que ninguém mais consulta.
+ * <p>
+ * As entradas ficam em um array indexado pelo identificador do ticker na {@link TabelaTickers}
+ * e guardam o preço em ponto fixo (veja {@link Preco}); o texto do preço só é montado quando
+ * é lido como texto.
+ * <p>
+ * O cache também conta os acessos a cada entrada, para que as ações mais procuradas possam
+ * ser renovadas antes de expirar (veja {@link #obterCandidatosRenovacao(long, long, int)}),
+ * e avisa os {@link OuvintePreco}s registrados sempre que o preço de uma ação muda.
+ * <p>
+ * As entradas podem ser gravadas periodicamente em um snapshot em disco e recarregadas na
+ * partida do servidor (veja {@link #iniciarSnapshotPeriodico(Path, long)} e
+ * {@link #carregarSnapshot(Path)}), para que ele volte a atender pelo cache sem consultar
+ * o banco de dados nem a API.
+ */
+public class Cache {
+    /** Tempo de vida padrão de uma entrada, em milissegundos. */
+    public static final long TTL_PADRAO_MS = 60_000;
+    /** Número máximo padrão de entradas no cache. */
+    public static final int TAMANHO_MAXIMO_PADRAO = 1_000;
+    /** Valor devolvido por {@link #obterPrecoPontoFixo(String)} quando não há preço válido. */
+    public static final long SEM_PRECO = Long.MIN_VALUE;
+
+    /** Tempo de gravação de cada snapshot. */
+    private static final Histograma LATENCIA_SNAPSHOT = Metricas.global().histograma("cache.snapshot");
+    /** Tempo máximo de espera pela gravação periódica em andamento ao parar o snapshot. */
+    private static final long ESPERA_ENCERRAMENTO_SNAPSHOT_MS = 10_000;
+
+    private final TabelaTickers tabela;
+    private final VetorPorTicker<Entrada> entradas;
+    private final AtomicInteger quantidade = new AtomicInteger();
+    private final Queue<Entrada> relogio;
+    private final AtomicInteger tamanhoRelogio = new AtomicInteger();
+    private final long ttlMillis;
+    private final int tamanhoMaximo;
+
+    private final List<OuvintePreco> ouvintes = new CopyOnWriteArrayList<>();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+
+    private final Object travaSnapshot = new Object();
+    private ScheduledExecutorService snapshotPeriodico;
+    private Path arquivoSnapshot;
+
+    /**
+     * Construtor da classe Cache.
+     * Inicializa o cache com o tempo de vida e o tamanho máximo padrão.
+     */
+    public Cache() {
+        this(TTL_PADRAO_MS, TAMANHO_MAXIMO_PADRAO);
+    }
+
+    /**
+     * Construtor da classe Cache.
+     *
+     * @param ttlMillis     O tempo de vida de cada entrada, em milissegundos.
+     * @param tamanhoMaximo O número máximo de entradas mantidas no cache.
+     */
+    public Cache(long ttlMillis, int tamanhoMaximo) {
+        this(ttlMillis, tamanhoMaximo, new TabelaTickers());
+    }
+
+    /**
+     * Construtor da classe Cache.
+     *
+     * @param ttlMillis     O tempo de vida de cada entrada, em milissegundos.
+     * @param tamanhoMaximo O número máximo de entradas mantidas no cache.
+     * @param tabela        A tabela que atribui os identificadores dos tickers.
+     */
+    public Cache(long ttlMillis, int tamanhoMaximo, TabelaTickers tabela) {
+        if (ttlMillis <= 0 || tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("TTL e tamanho máximo devem ser positivos");
+        }
+        this.ttlMillis = ttlMillis;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.tabela = tabela;
+        this.entradas = new VetorPorTicker<>(tabela.capacidade());
+        this.relogio = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Retorna a tabela que atribui os identificadores dos tickers do cache.
+     *
+     * @return A tabela de tickers.
+     */
+    public TabelaTickers getTabelaTickers() {
+        return tabela;
+    }
+
+    /**
+     * Obtém o preço de uma ação a partir do cache.
+     *
+     * @param ticker O código da ação.
+     * @return O preço da ação, ou {@code null} se o ticker não estiver presente no cache
+     *         ou se a entrada já tiver expirado.
+     */
+    public String obterPreco(String ticker) {
+        long preco = obterPrecoPontoFixo(ticker);
+        return preco != SEM_PRECO ? Preco.formatar(preco) : null;
+    }
+
+    /**
+     * Obtém o preço de uma ação a partir do cache, em ponto fixo.
+     *
+     * @param ticker O código da ação.
+     * @return O preço da ação em ponto fixo, ou {@link #SEM_PRECO} se o ticker não estiver
+     *         presente no cache ou se a entrada já tiver expirado.
+     */
+    public long obterPrecoPontoFixo(String ticker) {
+        int id = tabela.buscar(ticker);
+        Entrada entrada = id != TabelaTickers.AUSENTE ? entradas.obter(id) : null;
+        if (entrada != null) {
+            entrada.acessos.increment();
+        }
+        if (entrada == null || entrada.expirada(System.currentTimeMillis())) {
+            if (entrada != null) {
+                removerExpirada(entrada);
+            }
+            falhas.increment();
+            return SEM_PRECO;
+        }
+        entrada.referenciada = true;
+        acertos.increment();
+        return entrada.preco;
+    }
+
+    /**
+     * Atualiza o cache com o preço de uma ação.
+     * Se o ticker já existir no cache, o preço será atualizado e o tempo de vida reiniciado.
+     *
+     * @param ticker O código da ação.
+     * @param preco  O preço da ação, em texto.
+     * @throws NumberFormatException Se o preço não for um número válido.
+     */
+    public void atualizarCache(String ticker, String preco) {
+        atualizarCache(ticker, Preco.paraPontoFixo(preco));
+    }
+
+    /**
+     * Atualiza o cache com o preço de uma ação.
+     * Se o ticker já existir no cache, o preço será atualizado e o tempo de vida reiniciado.
+     *
+     * @param ticker O código da ação.
+     * @param preco  O preço da ação, em ponto fixo.
+     * @throws IllegalStateException Se o ticker for novo e a tabela de tickers estiver cheia.
+     */
+    public void atualizarCache(String ticker, long preco) {
+        gravar(ticker, preco, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Inclui no cache um preço obtido anteriormente, por exemplo um preço lido do banco de
+     * dados na partida do servidor. A entrada expira um TTL depois do instante em que o preço
+     * foi obtido, e não depois da inclusão; preços que já expiraram não são incluídos.
+     *
+     * @param ticker  O código da ação.
+     * @param preco   O preço da ação, em ponto fixo.
+     * @param obtidoEm O instante em que o preço foi obtido, em milissegundos desde a época Unix.
+     * @return {@code true} se o preço foi incluído, ou {@code false} se já estava expirado.
+     * @throws IllegalStateException Se o ticker for novo e a tabela de tickers estiver cheia.
+     */
+    public boolean carregar(String ticker, long preco, long obtidoEm) {
+        long expiraEm = obtidoEm + ttlMillis;
+        if (expiraEm <= System.currentTimeMillis()) {
+            return false;
+        }
+        gravar(ticker, preco, expiraEm);
+        return true;
+    }
+
+    /**
+     * Grava o preço de uma ação, criando a entrada ou atualizando a existente.
+     *
+     * @param ticker   O código da ação.
+     * @param preco    O preço da ação, em ponto fixo.
+     * @param expiraEm O instante em que a entrada expira, em milissegundos desde a época Unix.
+     */
+    private Entrada gravar(String ticker, long preco, long expiraEm) {
+        int id = tabela.id(ticker);
+        long anterior = SEM_PRECO;
+        Entrada gravada;
+        while (true) {
+            Entrada atual = entradas.obter(id);
+            if (atual == null) {
+                Entrada nova = new Entrada(id, tabela.simbolo(id), preco, expiraEm);
+                if (entradas.trocar(id, null, nova)) {
+                    quantidade.incrementAndGet();
+                    incluirNoRelogio(nova);
+                    gravada = nova;
+                    break;
+                }
+                continue;
+            }
+            // O bloqueio da entrada impede que ela seja removida enquanto é atualizada.
+            synchronized (atual) {
+                if (entradas.obter(id) == atual) {
+                    anterior = atual.preco;
+                    atual.atualizar(preco, expiraEm);
+                    gravada = atual;
+                    break;
+                }
+            }
+        }
+        if (quantidade.get() > tamanhoMaximo) {
+            removerExcedentes();
+        } else {
+            avancarRelogio();
+        }
+        if (preco != anterior) {
+            String simbolo = tabela.simbolo(id);
+            for (OuvintePreco ouvinte : ouvintes) {
+                ouvinte.precoAlterado(simbolo, preco);
+            }
+        }
+        return gravada;
+    }
+
+    /**
+     * Grava as entradas válidas do cache em um snapshot em disco, com o preço, o instante em
+     * que foi obtido e a frequência de acesso de cada ação. O arquivo é substituído de forma
+     * atômica: se a gravação for interrompida, o snapshot anterior continua válido.
+     *
+     * @param arquivo O arquivo do snapshot.
+     * @return A quantidade de entradas gravadas.
+     * @throws IOException Se não for possível gravar o snapshot.
+     */
+    public int gravarSnapshot(Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        long agora = System.currentTimeMillis();
+        List<SnapshotCache.Registro> registros = new ArrayList<>(quantidade.get());
+        entradas.paraCada(entrada -> {
+            if (!entrada.expirada(agora)) {
+                registros.add(new SnapshotCache.Registro(entrada.ticker, entrada.preco, entrada.expiraEm - ttlMillis,
+                    entrada.frequencia + entrada.acessos.sum()));
+            }
+        });
+        synchronized (travaSnapshot) {
+            SnapshotCache.gravar(arquivo, registros);
+        }
+        LATENCIA_SNAPSHOT.registrarDesde(inicio);
+        return registros.size();
+    }
+
+    /**
+     * Carrega no cache as entradas de um snapshot gravado por {@link #gravarSnapshot(Path)}.
+     * O arquivo é mapeado na memória; as entradas que já passaram do TTL são descartadas, e
+     * as demais expiram um TTL depois do instante em que o preço foi obtido e mantêm a sua
+     * frequência de acesso. Deve ser chamado antes de o cache começar a ser usado.
+     *
+     * @param arquivo O arquivo do snapshot.
+     * @return A quantidade de entradas carregadas, ou 0 se o arquivo não existir.
+     * @throws IOException Se o arquivo não puder ser lido ou não for um snapshot válido.
+     */
+    public int carregarSnapshot(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        long agora = System.currentTimeMillis();
+        int carregadas = 0;
+        for (SnapshotCache.Registro registro : SnapshotCache.ler(arquivo)) {
+            long expiraEm = registro.obtidoEm + ttlMillis;
+            if (expiraEm <= agora) {
+                continue;
+            }
+            try {
+                gravar(registro.ticker, registro.preco, expiraEm).frequencia = registro.frequencia;
+                carregadas++;
+            } catch (IllegalStateException e) {
+                System.out.println("Entrada do snapshot ignorada: " + e.getMessage());
+            }
+        }
+        return carregadas;
+    }
+
+    /**
+     * Passa a gravar um snapshot das entradas do cache em intervalos regulares, em uma
+     * thread própria. Substitui o snapshot periódico anterior, se houver.
+     *
+     * @param arquivo     O arquivo do snapshot.
+     * @param intervaloMs O intervalo entre as gravações, em milissegundos.
+     * @see #gravarSnapshot(Path)
+     */
+    public synchronized void iniciarSnapshotPeriodico(Path arquivo, long intervaloMs) {
+        if (intervaloMs <= 0) {
+            throw new IllegalArgumentException("O intervalo deve ser positivo");
+        }
+        pararSnapshotPeriodico();
+        arquivoSnapshot = arquivo;
+        snapshotPeriodico = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "snapshot-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotPeriodico.scheduleWithFixedDelay(() -> gravarSnapshotPeriodico(arquivo),
+            intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrompe o snapshot periódico, se houver, e grava um último snapshot. A gravação
+     * periódica em andamento termina antes, para que um snapshot mais antigo não substitua
+     * o último.
+     */
+    public synchronized void pararSnapshotPeriodico() {
+        if (snapshotPeriodico != null) {
+            snapshotPeriodico.shutdown();
+            try {
+                if (!snapshotPeriodico.awaitTermination(ESPERA_ENCERRAMENTO_SNAPSHOT_MS, TimeUnit.MILLISECONDS)) {
+                    System.out.println("O snapshot periódico do cache não terminou a tempo");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotPeriodico = null;
+            gravarSnapshotPeriodico(arquivoSnapshot);
+        }
+    }
+
+    private void gravarSnapshotPeriodico(Path arquivo) {
+        try {
+            gravarSnapshot(arquivo);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Erro ao gravar o snapshot do cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra um ouvinte que será avisado sempre que o preço de uma ação mudar no cache.
+     * O aviso é feito na thread que atualizou o cache, e por isso o ouvinte não deve bloquear.
+     *
+     * @param ouvinte O ouvinte a registrar.
+     */
+    public void adicionarOuvinte(OuvintePreco ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Remove um ouvinte registrado com {@link #adicionarOuvinte(OuvintePreco)}.
+     *
+     * @param ouvinte O ouvinte a remover.
+     */
+    public void removerOuvinte(OuvintePreco ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Verifica se a entrada de uma ação está ausente, expirada ou perto de expirar.
+     *
+     * @param ticker         O código da ação.
+     * @param antecedenciaMs O tempo, em milissegundos, antes da expiração a partir do qual
+     *                       a entrada é considerada perto de expirar.
+     * @return {@code true} se a entrada precisa ser renovada.
+     */
+    public boolean precisaRenovar(String ticker, long antecedenciaMs) {
+        int id = tabela.buscar(ticker);
+        Entrada entrada = id != TabelaTickers.AUSENTE ? entradas.obter(id) : null;
+        return entrada == null || entrada.expiraEm - System.currentTimeMillis() <= antecedenciaMs;
+    }
+
+    /**
+     * Remove entradas até que o cache volte ao tamanho máximo.
+     * Entradas expiradas são removidas primeiro; as demais recebem uma segunda chance
+     * se foram lidas desde a última passagem do relógio.
+     */
+    private void removerExcedentes() {
+        long agora = System.currentTimeMillis();
+        int tentativas = 2 * tamanhoRelogio.get() + 1;
+        while (quantidade.get() > tamanhoMaximo && tentativas-- > 0) {
+            Entrada candidata = retirarDoRelogio();
+            if (candidata == null) {
+                return;
+            }
+            if (entradas.obter(candidata.id) != candidata) {
+                continue;
+            }
+            if (candidata.referenciada && !candidata.expirada(agora)) {
+                candidata.referenciada = false;
+                incluirNoRelogio(candidata);
+                continue;
+            }
+            if (remover(candidata)) {
+                remocoes.increment();
+            }
+        }
+    }
+
+    /**
+     * Avança o relógio até a próxima entrada presente no cache: ela é removida se tiver
+     * expirado e, caso contrário, volta ao final do relógio sem perder a segunda chance.
+     * As posições de entradas que já saíram do cache são descartadas no caminho.
+     */
+    private void avancarRelogio() {
+        Entrada candidata;
+        do {
+            candidata = retirarDoRelogio();
+            if (candidata == null) {
+                return;
+            }
+        } while (entradas.obter(candidata.id) != candidata);
+        if (candidata.expirada(System.currentTimeMillis())) {
+            remover(candidata);
+        } else {
+            incluirNoRelogio(candidata);
+        }
+    }
+
+    /**
+     * Remove uma entrada lida depois de expirar, se ela não tiver sido renovada nesse meio tempo.
+     */
+    private void removerExpirada(Entrada entrada) {
+        boolean removida;
+        synchronized (entrada) {
+            removida = entrada.expirada(System.currentTimeMillis()) && entradas.trocar(entrada.id, entrada, null);
+        }
+        if (removida) {
+            quantidade.decrementAndGet();
+        }
+    }
+
+    /**
+     * Remove uma entrada do cache. A entrada pode continuar no relógio; ela é descartada
+     * quando o relógio passar por ela.
+     *
+     * @return {@code true} se a entrada ainda estava no cache e foi removida.
+     */
+    private boolean remover(Entrada entrada) {
+        boolean removida;
+        synchronized (entrada) {
+            removida = entradas.trocar(entrada.id, entrada, null);
+        }
+        if (removida) {
+            quantidade.decrementAndGet();
+        }
+        return removida;
+    }
+
+    private void incluirNoRelogio(Entrada entrada) {
+        tamanhoRelogio.incrementAndGet();
+        relogio.offer(entrada);
+    }
+
+    private Entrada retirarDoRelogio() {
+        Entrada entrada = relogio.poll();
+        if (entrada != null) {
+            tamanhoRelogio.decrementAndGet();
+        }
+        return entrada;
+    }
+
+    /**
+     * Seleciona as ações mais procuradas cujas entradas estão perto de expirar, ou já
+     * expiraram, para que sejam renovadas antes do próximo acesso.
+     * <p>
+     * A frequência de cada entrada é atualizada a cada chamada: a frequência anterior é
+     * reduzida à metade e somada aos acessos desde a última chamada. Por isso, este método
+     * deve ser chamado periodicamente e por uma única thread.
+     *
+     * @param antecedenciaMs   O tempo, em milissegundos, antes da expiração a partir do qual
+     *                         uma entrada pode ser renovada.
+     * @param frequenciaMinima A frequência mínima para que uma entrada seja renovada.
+     * @param limite           O número máximo de ações retornadas.
+     * @return Os tickers a renovar, do mais procurado para o menos procurado.
+     */
+    public List<String> obterCandidatosRenovacao(long antecedenciaMs, long frequenciaMinima, int limite) {
+        long agora = System.currentTimeMillis();
+        List<Entrada> candidatas = new ArrayList<>();
+        entradas.paraCada(entrada -> {
+            entrada.frequencia = entrada.frequencia / 2 + entrada.acessos.sumThenReset();
+            if (entrada.frequencia >= frequenciaMinima && entrada.expiraEm - agora <= antecedenciaMs) {
+                candidatas.add(entrada);
+            }
+        });
+        candidatas.sort((a, b) -> Long.compare(b.frequencia, a.frequencia));
+        List<String> tickers = new ArrayList<>(Math.min(limite, candidatas.size()));
+        for (int i = 0; i < candidatas.size() && i < limite; i++) {
+            tickers.add(candidatas.get(i).ticker);
+        }
+        return tickers;
+    }
+
+    /**
+     * Retorna o número de entradas presentes no cache, incluindo as expiradas ainda não removidas.
+     *
+     * @return O número de entradas no cache.
+     */
+    public int tamanho() {
+        return quantidade.get();
+    }
+
+    /**
+     * Retorna o número de leituras atendidas pelo cache.
+     *
+     * @return O número de acertos.
+     */
+    public long obterAcertos() {
+        return acertos.sum();
+    }
+
+    /**
+     * Retorna o número de leituras que não encontraram um preço válido no cache.
+     *
+     * @return O número de falhas.
+     */
+    public long obterFalhas() {
+        return falhas.sum();
+    }
+
+    /**
+     * Retorna o número de entradas removidas por exceder o tamanho máximo do cache.
+     *
+     * @return O número de remoções.
+     */
+    public long obterRemocoes() {
+        return remocoes.sum();
+    }
+
+    /**
+     * Recebe os avisos de mudança de preço do cache.
+     */
+    public interface OuvintePreco {
+        /**
+         * Chamado quando o preço de uma ação é incluído no cache ou muda.
+         *
+         * @param ticker O código da ação.
+         * @param preco  O novo preço da ação, em ponto fixo.
+         */
+        void precoAlterado(String ticker, long preco);
+    }
+
+    /**
+     * Entrada do cache. Os campos são voláteis para que as leituras não precisem de bloqueio.
+     */
+    private static final class Entrada {
+        private final int id;
+        private final String ticker;
+        private volatile long preco;
+        private volatile long expiraEm;
+        private volatile boolean referenciada;
+        private final LongAdder acessos = new LongAdder();
+        private volatile long frequencia;
+
+        Entrada(int id, String ticker, long preco, long expiraEm) {
+            this.id = id;
+            this.ticker = ticker;
+            this.preco = preco;
+            this.expiraEm = expiraEm;
+        }
+
+        void atualizar(long preco, long expiraEm) {
+            this.preco = preco;
+            this.expiraEm = expiraEm;
+            this.referenciada = true;
+        }
+
+        boolean expirada(long agora) {
+            return agora >= expiraEm;
+        }
+    }
+}
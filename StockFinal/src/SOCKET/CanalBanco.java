@@ -0,0 +1,279 @@
+package SOCKET;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+
+/**
+ * A classe CanalBanco mantém conexões persistentes entre o servidor e o serviço de banco
+ * de dados, em vez de abrir um novo socket a cada requisição.
+ * <p>
+ * Cada requisição recebe um identificador, enviado no formato {@code #<id> <comando>}, e
+ * as linhas de resposta voltam com o mesmo identificador. Assim, várias requisições podem
+ * estar em andamento na mesma conexão. Uma conexão que cai é reaberta na próxima
+ * requisição, e as requisições pendentes nela falham.
+ */
+class CanalBanco {
+    /** Tempo máximo, em milissegundos, de espera pela resposta de uma requisição. */
+    private static final long TEMPO_MAXIMO_RESPOSTA_MS = 10_000;
+    /** Tempo entre o envio de uma requisição e a sua resposta, incluindo as que falham. */
+    private static final Histograma LATENCIA = Metricas.global().histograma("servidor.canal_banco.latencia");
+
+    private final String endereco;
+    private final int porta;
+    private final Conexao[] conexoes;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final AtomicLong proximoId = new AtomicLong();
+    private volatile boolean fechado;
+
+    /**
+     * Construtor da classe CanalBanco. As conexões são abertas sob demanda.
+     *
+     * @param endereco           O endereço do serviço de banco de dados.
+     * @param porta              A porta do serviço de banco de dados.
+     * @param quantidadeConexoes A quantidade de conexões persistentes mantidas.
+     */
+    CanalBanco(String endereco, int porta, int quantidadeConexoes) {
+        if (quantidadeConexoes <= 0) {
+            throw new IllegalArgumentException("A quantidade de conexões deve ser positiva");
+        }
+        this.endereco = endereco;
+        this.porta = porta;
+        this.conexoes = new Conexao[quantidadeConexoes];
+        for (int i = 0; i < quantidadeConexoes; i++) {
+            conexoes[i] = new Conexao(i);
+        }
+    }
+
+    /**
+     * Envia um comando cuja resposta tem uma única linha.
+     *
+     * @param comando O comando a ser enviado.
+     * @return A linha de resposta.
+     * @throws IOException Se não for possível enviar o comando ou obter a resposta.
+     */
+    String enviar(String comando) throws IOException {
+        return aguardar(enviarAssincrono(comando, null)).get(0);
+    }
+
+    /**
+     * Envia um comando cuja resposta tem várias linhas.
+     *
+     * @param comando    O comando a ser enviado.
+     * @param terminador A linha que encerra a resposta; ela não é incluída no resultado.
+     * @return As linhas de resposta.
+     * @throws IOException Se não for possível enviar o comando ou obter a resposta.
+     */
+    List<String> enviar(String comando, String terminador) throws IOException {
+        return aguardar(enviarAssincrono(comando, terminador));
+    }
+
+    /**
+     * Envia um comando sem aguardar a resposta.
+     *
+     * @param comando    O comando a ser enviado.
+     * @param terminador A linha que encerra a resposta, ou {@code null} se a resposta tem uma única linha.
+     * @return As linhas de resposta, quando disponíveis.
+     */
+    CompletableFuture<List<String>> enviarAssincrono(String comando, String terminador) {
+        long id = proximoId.incrementAndGet();
+        long inicio = System.nanoTime();
+        Requisicao requisicao = new Requisicao(terminador);
+        Conexao conexao = conexoes[Math.floorMod(proxima.getAndIncrement(), conexoes.length)];
+        try {
+            conexao.enviar(id, comando, requisicao);
+        } catch (IOException e) {
+            requisicao.resposta.completeExceptionally(e);
+        }
+        return requisicao.resposta.orTimeout(TEMPO_MAXIMO_RESPOSTA_MS, TimeUnit.MILLISECONDS)
+            .whenComplete((linhas, erro) -> {
+                conexao.pendentes.remove(id);
+                LATENCIA.registrarDesde(inicio);
+            });
+    }
+
+    /**
+     * Retorna o número de requisições enviadas que ainda aguardam resposta.
+     *
+     * @return O número de requisições pendentes, somando todas as conexões.
+     */
+    int pendentes() {
+        int total = 0;
+        for (Conexao conexao : conexoes) {
+            total += conexao.pendentes.size();
+        }
+        return total;
+    }
+
+    /**
+     * Fecha todas as conexões. As requisições pendentes falham.
+     */
+    void fechar() {
+        fechado = true;
+        for (Conexao conexao : conexoes) {
+            conexao.fechar(new IOException("Canal com o banco de dados fechado"));
+        }
+    }
+
+    private static List<String> aguardar(CompletableFuture<List<String>> resposta) throws IOException {
+        try {
+            return resposta.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) {
+                throw (IOException) causa;
+            }
+            throw new IOException("Falha na requisição ao banco de dados: " + causa, causa);
+        }
+    }
+
+    /**
+     * Uma requisição aguardando resposta.
+     */
+    private static final class Requisicao {
+        private final String terminador;
+        private final List<String> linhas = new ArrayList<>();
+        private final CompletableFuture<List<String>> resposta = new CompletableFuture<>();
+
+        Requisicao(String terminador) {
+            this.terminador = terminador;
+        }
+
+        /**
+         * Adiciona uma linha de resposta. Chamado apenas pela thread leitora da conexão.
+         *
+         * @return {@code true} se a resposta terminou.
+         */
+        boolean receber(String linha) {
+            if (terminador == null) {
+                linhas.add(linha);
+                resposta.complete(linhas);
+                return true;
+            }
+            if (terminador.equals(linha)) {
+                resposta.complete(linhas);
+                return true;
+            }
+            linhas.add(linha);
+            return false;
+        }
+    }
+
+    /**
+     * Uma conexão persistente com o serviço de banco de dados e a thread que lê suas respostas.
+     */
+    private final class Conexao {
+        private final int indice;
+        private final ReentrantLock trava = new ReentrantLock();
+        private final ConcurrentMap<Long, Requisicao> pendentes = new ConcurrentHashMap<>();
+        private Socket socket;
+        private PrintWriter out;
+
+        Conexao(int indice) {
+            this.indice = indice;
+        }
+
+        void enviar(long id, String comando, Requisicao requisicao) throws IOException {
+            trava.lock();
+            try {
+                if (fechado) {
+                    throw new IOException("Canal com o banco de dados fechado");
+                }
+                if (socket == null || socket.isClosed()) {
+                    conectar();
+                }
+                pendentes.put(id, requisicao);
+                out.println("#" + id + " " + comando);
+                if (out.checkError()) {
+                    pendentes.remove(id);
+                    fechar(new IOException("Erro ao enviar comando ao banco de dados"));
+                    throw new IOException("Erro ao enviar comando ao banco de dados");
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        private void conectar() throws IOException {
+            Socket novo = new Socket(endereco, porta);
+            socket = novo;
+            out = new PrintWriter(novo.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(novo.getInputStream()));
+            Thread leitora = new Thread(() -> ler(novo, in), "canal-banco-" + indice);
+            leitora.setDaemon(true);
+            leitora.start();
+        }
+
+        private void ler(Socket origem, BufferedReader in) {
+            IOException erro = new IOException("Conexão com o banco de dados encerrada");
+            try {
+                String linha;
+                while ((linha = in.readLine()) != null) {
+                    int espaco = linha.indexOf(' ');
+                    if (!linha.startsWith("#") || espaco < 0) {
+                        System.out.println("Resposta do banco de dados sem identificador: " + linha);
+                        continue;
+                    }
+                    long id;
+                    try {
+                        id = Long.parseLong(linha.substring(1, espaco));
+                    } catch (NumberFormatException e) {
+                        System.out.println("Identificador inválido na resposta do banco de dados: " + linha);
+                        continue;
+                    }
+                    Requisicao requisicao = pendentes.get(id);
+                    if (requisicao != null && requisicao.receber(linha.substring(espaco + 1))) {
+                        pendentes.remove(id);
+                    }
+                }
+            } catch (IOException e) {
+                erro = e;
+            }
+            trava.lock();
+            try {
+                if (socket == origem) {
+                    fechar(erro);
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void fechar(IOException motivo) {
+            trava.lock();
+            try {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        System.out.println("Erro ao fechar conexão com o banco de dados: " + e.getMessage());
+                    }
+                    socket = null;
+                }
+                for (Long id : pendentes.keySet()) {
+                    Requisicao requisicao = pendentes.remove(id);
+                    if (requisicao != null) {
+                        requisicao.resposta.completeExceptionally(motivo);
+                    }
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+}
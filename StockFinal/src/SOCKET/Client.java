@@ -1,144 +1,525 @@
-package SOCKET;
-
-import java.io.*;
-import java.net.*;
-import java.util.Scanner;
-
-/**
- * A classe Client representa um cliente que se conecta a um servidor
- * para solicitar preços de ações e históricos de preços.
- */
-public class Client {
-    private Socket clientSocket;
-    private Scanner scanner;
-    private String enderecoServidor;
-    private int portaServidor;
-
-    /**
-     * Construtor da classe Client.
-     *
-     * @param enderecoServidor O endereço do servidor ao qual o cliente se conectará.
-     * @param portaServidor A porta do servidor ao qual o cliente se conectará.
-     */
-    public Client(String enderecoServidor, int portaServidor) {
-        this.scanner = new Scanner(System.in);
-        this.enderecoServidor = enderecoServidor;
-        this.portaServidor = portaServidor;
-    }
-
-    /**
-     * Inicia a conexão do cliente com o servidor e exibe o menu de opções.
-     *
-     * @throws IOException Se ocorrer um erro de I/O durante a conexão ou comunicação.
-     */
-    public void iniciar() throws IOException {
-        clientSocket = new Socket(enderecoServidor, portaServidor);
-        System.out.println("Cliente conectado ao servidor: " + enderecoServidor + " na porta: " + portaServidor);
-        loopMenu();
-    }
-
-    /**
-     * Fecha a conexão do cliente com o servidor e libera os recursos.
-     */
-    public void fechar() {
-        try {
-            if (clientSocket != null && !clientSocket.isClosed()) {
-                clientSocket.close();
-            }
-            if (scanner != null) {
-                scanner.close();
-            }
-        } catch (IOException e) {
-            System.out.println("Erro ao fechar o cliente: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Exibe o menu e processa as opções escolhidas pelo usuário.
-     */
-    private void loopMenu() {
-        try (
-            PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-            BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        ) {
-            String opcao;
-            do {
-                exibirMenu();
-                opcao = scanner.nextLine();
-                switch (opcao) {
-                    case "1":
-                        solicitarPrecoAcao(out, in);
-                        break;
-                    case "2":
-                        solicitarHistoricoPrecos(out, in);
-                        break;
-                    case "3":
-                        System.out.println("Saindo...");
-                        out.println("SAIR");
-                        return;
-                    default:
-                        System.out.println("Opção inválida!");
-                }
-            } while (true);
-        } catch (IOException e) {
-            System.out.println("Erro ao comunicar com o servidor: " + e.getMessage());
-        } finally {
-            try {
-                clientSocket.close();
-            } catch (IOException e) {
-                System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
-            }
-        }
-    }
-
-    /**
-     * Exibe o menu de opções para o usuário.
-     */
-    private void exibirMenu() {
-        System.out.println("\n=== Menu ===");
-        System.out.println("1. Solicitar preço de ação");
-        System.out.println("2. Solicitar histórico de preços");
-        System.out.println("3. Sair");
-        System.out.print("Escolha uma opção: ");
-    }
-
-    /**
-     * Solicita o preço atual de uma ação ao servidor.
-     *
-     * @param out PrintWriter para enviar dados ao servidor.
-     * @param in BufferedReader para receber dados do servidor.
-     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
-     */
-    private void solicitarPrecoAcao(PrintWriter out, BufferedReader in) throws IOException {
-        System.out.print("Digite o ticker da ação: ");
-        String ticker = scanner.nextLine();
-        out.println("PRECO " + ticker);
-        String resposta = in.readLine();
-        System.out.println("Preço atual de " + ticker + ": " + resposta);
-    }
-
-    /**
-     * Solicita o histórico de preços de uma ação ao servidor.
-     *
-     * @param out PrintWriter para enviar dados ao servidor.
-     * @param in BufferedReader para receber dados do servidor.
-     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
-     */
-    private void solicitarHistoricoPrecos(PrintWriter out, BufferedReader in) throws IOException {
-        System.out.print("Digite o ticker da ação: ");
-        String ticker = scanner.nextLine();
-        out.println("HISTORICO " + ticker);
-        System.out.println("Histórico de preços de " + ticker + ":");
-        String linha;
-        while ((linha = in.readLine()) != null) {
-            if (linha.equals("FIM_HISTORICO")) {
-                break;
-            }
-            if (linha.equals("HISTORICO_NAO_ENCONTRADO")) {
-                System.out.println("Histórico não encontrado para " + ticker);
-                return;
-            }
-            System.out.println(linha);
-        }
-    }
-}
+package SOCKET;
+
+import java.io.*;
+import java.net.*;
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * A classe Client representa um cliente que se conecta a um servidor
+ * para solicitar preços de ações e históricos de preços.
+ * <p>
+ * A comunicação usa o protocolo de texto, a menos que o modo binário seja negociado
+ * com {@link #ativarModoBinario()}. No modo de texto, o cliente pode assinar as mudanças de
+ * preço de ações com {@link #assinar(List, OuvinteAtualizacao)}.
+ */
+public class Client {
+    private Socket clientSocket;
+    private Scanner scanner;
+    private String enderecoServidor;
+    private int portaServidor;
+    private PrintWriter out;
+    private BufferedReader in;
+    private DataInputStream entradaBinaria;
+    private DataOutputStream saidaBinaria;
+    private ProtocoloBinario.Escritor escritor;
+    private boolean modoBinario;
+    private int proximaRequisicao;
+    private BlockingQueue<String> respostas;
+    private volatile OuvinteAtualizacao ouvinte;
+
+    /** Marca, na fila de respostas, o fim da conexão. Comparada por identidade. */
+    private static final String FIM_CONEXAO = new String();
+
+    /**
+     * Construtor da classe Client.
+     *
+     * @param enderecoServidor O endereço do servidor ao qual o cliente se conectará.
+     * @param portaServidor A porta do servidor ao qual o cliente se conectará.
+     */
+    public Client(String enderecoServidor, int portaServidor) {
+        this.scanner = new Scanner(System.in);
+        this.enderecoServidor = enderecoServidor;
+        this.portaServidor = portaServidor;
+    }
+
+    /**
+     * Inicia a conexão do cliente com o servidor e exibe o menu de opções.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a conexão ou comunicação.
+     */
+    public void iniciar() throws IOException {
+        conectar();
+        System.out.println("Cliente conectado ao servidor: " + enderecoServidor + " na porta: " + portaServidor);
+        loopMenu();
+    }
+
+    /**
+     * Conecta o cliente ao servidor, sem exibir o menu.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a conexão.
+     */
+    public void conectar() throws IOException {
+        clientSocket = new Socket(enderecoServidor, portaServidor);
+        out = new PrintWriter(clientSocket.getOutputStream(), true);
+        in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+        modoBinario = false;
+        respostas = null;
+    }
+
+    /**
+     * Negocia o modo binário do protocolo com o servidor. Deve ser chamado logo após a
+     * conexão, antes de qualquer outro comando. Se o servidor não aceitar, o cliente
+     * continua no modo de texto.
+     *
+     * @return {@code true} se o modo binário foi ativado.
+     * @throws IOException Se ocorrer um erro de I/O durante a negociação.
+     * @throws IllegalStateException Se alguma ação já tiver sido assinada.
+     * @see ProtocoloBinario
+     */
+    public boolean ativarModoBinario() throws IOException {
+        if (respostas != null) {
+            throw new IllegalStateException("O modo binário não pode ser ativado depois de uma assinatura");
+        }
+        out.println(ProtocoloBinario.NEGOCIACAO);
+        // A resposta é lida byte a byte para que nenhum quadro seja consumido pelo BufferedReader.
+        String resposta = ProtocoloBinario.lerLinha(clientSocket.getInputStream());
+        if (!ProtocoloBinario.NEGOCIACAO_OK.equals(resposta)) {
+            return false;
+        }
+        entradaBinaria = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+        saidaBinaria = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+        escritor = new ProtocoloBinario.Escritor(saidaBinaria);
+        modoBinario = true;
+        return true;
+    }
+
+    /**
+     * Solicita o preço atual de uma ação ao servidor.
+     *
+     * @param ticker O ticker da ação.
+     * @return O preço, ou a mensagem de erro enviada pelo servidor.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    public String solicitarPreco(String ticker) throws IOException {
+        if (!modoBinario) {
+            out.println("PRECO " + ticker);
+            return lerLinha();
+        }
+        return lerPreco(requisitarBinario(ProtocoloBinario.OP_PRECO, ticker));
+    }
+
+    /**
+     * Solicita o preço atual de várias ações ao servidor em uma única ida e volta.
+     * No modo de texto é enviado um único comando {@code MPRECO}; no modo binário, os
+     * quadros de todas as ações são enviados de uma vez, sem aguardar as respostas, que
+     * chegam na mesma ordem.
+     *
+     * @param tickers Os tickers das ações.
+     * @return Um mapa, na ordem dos tickers informados, do ticker para o preço ou para a
+     *         mensagem de erro enviada pelo servidor.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    public Map<String, String> solicitarPrecos(List<String> tickers) throws IOException {
+        Map<String, String> precos = new LinkedHashMap<>();
+        if (tickers.isEmpty()) {
+            return precos;
+        }
+        if (!modoBinario) {
+            out.println("MPRECO " + String.join(" ", tickers));
+            String resposta = lerLinha();
+            if (resposta == null) {
+                throw new EOFException("Conexão encerrada pelo servidor");
+            }
+            for (String par : resposta.split(";")) {
+                int separador = par.indexOf('=');
+                if (separador < 0) {
+                    throw new IOException("Resposta inválida do servidor: " + resposta);
+                }
+                precos.put(par.substring(0, separador), par.substring(separador + 1));
+            }
+            return precos;
+        }
+
+        int primeira = proximaRequisicao + 1;
+        for (String ticker : tickers) {
+            ProtocoloBinario.escreverTicker(escritor.iniciar(ProtocoloBinario.OP_PRECO, ++proximaRequisicao), ticker);
+            escritor.enfileirar();
+        }
+        saidaBinaria.flush();
+        for (int i = 0; i < tickers.size(); i++) {
+            ProtocoloBinario.Quadro resposta = lerRespostaBinaria(primeira + i);
+            precos.put(tickers.get(i), lerPreco(resposta));
+        }
+        return precos;
+    }
+
+    /**
+     * Solicita o histórico de preços de uma ação ao servidor.
+     *
+     * @param ticker O ticker da ação.
+     * @return As linhas do histórico, sem o terminador {@code FIM_HISTORICO}. Se não houver
+     *         histórico, a lista contém apenas {@code HISTORICO_NAO_ENCONTRADO}.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    public List<String> solicitarHistorico(String ticker) throws IOException {
+        if (!modoBinario) {
+            out.println("HISTORICO " + ticker);
+            List<String> linhas = new ArrayList<>();
+            String linha;
+            while ((linha = lerLinha()) != null && !linha.equals("FIM_HISTORICO")) {
+                linhas.add(linha);
+            }
+            return linhas;
+        }
+        ProtocoloBinario.Quadro resposta = requisitarBinario(ProtocoloBinario.OP_HISTORICO, ticker);
+        switch (resposta.operacao()) {
+            case ProtocoloBinario.RESP_HISTORICO:
+                return ProtocoloBinario.lerHistorico(resposta.conteudo());
+            case ProtocoloBinario.RESP_NAO_ENCONTRADO:
+                return Collections.singletonList("HISTORICO_NAO_ENCONTRADO");
+            default:
+                return Collections.singletonList(resposta.conteudo().readUTF());
+        }
+    }
+
+    /**
+     * Solicita ao servidor o relatório das métricas de desempenho. Disponível apenas no modo de texto.
+     *
+     * @return As linhas do relatório, uma métrica por linha, sem o terminador {@code FIM_STATS}.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     * @throws IllegalStateException Se o modo binário estiver ativo.
+     */
+    public List<String> solicitarEstatisticas() throws IOException {
+        if (modoBinario) {
+            throw new IllegalStateException("Estatísticas disponíveis apenas no modo de texto");
+        }
+        out.println("STATS");
+        List<String> linhas = new ArrayList<>();
+        String linha;
+        while ((linha = lerLinha()) != null && !linha.equals("FIM_STATS")) {
+            linhas.add(linha);
+        }
+        return linhas;
+    }
+
+    /**
+     * Solicita ao servidor uma página do histórico de preços de uma ação em um intervalo de
+     * tempo, do registro mais recente para o mais antigo. As linhas são entregues à medida
+     * que chegam, sem que a página seja acumulada na memória. Disponível apenas no modo de texto.
+     *
+     * @param ticker O ticker da ação.
+     * @param inicio O início do intervalo, inclusivo, em UTC.
+     * @param fim    O fim do intervalo, exclusivo, em UTC.
+     * @param limite O número máximo de registros da página.
+     * @param cursor O cursor devolvido pela página anterior, ou {@code null} para a primeira página.
+     * @param linhas O destino de cada linha do histórico, com a data em UTC.
+     * @return O cursor da próxima página, ou {@code null} se não houver mais registros.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     * @throws IllegalStateException Se o modo binário estiver ativo.
+     */
+    public String solicitarHistorico(String ticker, LocalDateTime inicio, LocalDateTime fim, int limite,
+                                     String cursor, Consumer<String> linhas) throws IOException {
+        if (modoBinario) {
+            throw new IllegalStateException("Histórico por período disponível apenas no modo de texto");
+        }
+        out.println("HISTORICO " + ticker + " " + inicio + " " + fim + " " + limite + (cursor != null ? " " + cursor : ""));
+        String proximo = null;
+        String linha;
+        while ((linha = lerLinha()) != null) {
+            if (linha.equals("FIM_HISTORICO")) {
+                return proximo;
+            }
+            if (linha.startsWith("PROXIMO ")) {
+                proximo = linha.substring("PROXIMO ".length());
+            } else {
+                linhas.accept(linha);
+            }
+        }
+        throw new EOFException("Conexão encerrada pelo servidor");
+    }
+
+    /**
+     * Assina as mudanças de preço de ações. O preço atual de cada ação já presente no cache
+     * do servidor é entregue em seguida; depois, cada mudança é entregue ao ouvinte, em uma
+     * thread de leitura própria, enquanto as respostas aos demais comandos continuam sendo
+     * devolvidas normalmente. Disponível apenas no modo de texto.
+     *
+     * @param tickers Os tickers das ações.
+     * @param ouvinte O ouvinte que recebe as atualizações de todas as assinaturas.
+     * @return {@code true} se a assinatura foi aceita; {@code false} se o limite de ações
+     *         assinadas por conexão seria ultrapassado.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     * @throws IllegalStateException Se o modo binário estiver ativo.
+     */
+    public boolean assinar(List<String> tickers, OuvinteAtualizacao ouvinte) throws IOException {
+        if (modoBinario) {
+            throw new IllegalStateException("Assinaturas disponíveis apenas no modo de texto");
+        }
+        this.ouvinte = ouvinte;
+        if (respostas == null) {
+            respostas = new LinkedBlockingQueue<>();
+            Thread leitora = new Thread(this::lerContinuamente, "cliente-assinaturas");
+            leitora.setDaemon(true);
+            leitora.start();
+        }
+        out.println("SUBSCRIBE " + String.join(" ", tickers));
+        String resposta = lerLinha();
+        if (resposta == null) {
+            throw new EOFException("Conexão encerrada pelo servidor");
+        }
+        if (resposta.equals("LIMITE_ASSINATURAS")) {
+            return false;
+        }
+        if (!resposta.equals("ASSINATURA_OK")) {
+            throw new IOException("Resposta inválida do servidor: " + resposta);
+        }
+        return true;
+    }
+
+    /**
+     * Cancela a assinatura de ações. Atualizações já enviadas pelo servidor ainda podem
+     * chegar ao ouvinte logo após o cancelamento.
+     *
+     * @param tickers Os tickers das ações, ou uma lista vazia para cancelar todas as assinaturas.
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     * @throws IllegalStateException Se o modo binário estiver ativo.
+     */
+    public void cancelarAssinatura(List<String> tickers) throws IOException {
+        if (modoBinario) {
+            throw new IllegalStateException("Assinaturas disponíveis apenas no modo de texto");
+        }
+        out.println(tickers.isEmpty() ? "UNSUBSCRIBE" : "UNSUBSCRIBE " + String.join(" ", tickers));
+        String resposta = lerLinha();
+        if (resposta == null) {
+            throw new EOFException("Conexão encerrada pelo servidor");
+        }
+    }
+
+    /**
+     * Fecha a conexão do cliente com o servidor e libera os recursos.
+     */
+    public void fechar() {
+        try {
+            if (clientSocket != null && !clientSocket.isClosed()) {
+                clientSocket.close();
+            }
+            if (scanner != null) {
+                scanner.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao fechar o cliente: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lê a próxima resposta do servidor no modo de texto. Depois da primeira assinatura, as
+     * linhas são lidas pela thread de assinaturas e repassadas por uma fila.
+     *
+     * @return A linha lida, ou {@code null} se a conexão foi encerrada.
+     * @throws IOException Se ocorrer um erro de I/O ou a thread for interrompida.
+     */
+    private String lerLinha() throws IOException {
+        if (respostas == null) {
+            return in.readLine();
+        }
+        try {
+            String linha = respostas.take();
+            if (linha == FIM_CONEXAO) {
+                respostas.add(FIM_CONEXAO);
+                return null;
+            }
+            return linha;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Leitura interrompida");
+        }
+    }
+
+    /**
+     * Lê as linhas do servidor até o fim da conexão, entregando as atualizações de preço ao
+     * ouvinte e colocando as demais linhas na fila de respostas.
+     */
+    private void lerContinuamente() {
+        try {
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                if (linha.startsWith("ATUALIZACAO ")) {
+                    String[] partes = linha.split(" ", 3);
+                    OuvinteAtualizacao atual = ouvinte;
+                    if (partes.length == 3 && atual != null) {
+                        atual.precoAtualizado(partes[1], partes[2]);
+                    }
+                } else {
+                    respostas.add(linha);
+                }
+            }
+        } catch (IOException e) {
+            // A conexão foi fechada; quem aguarda uma resposta recebe o fim da conexão.
+        } finally {
+            respostas.add(FIM_CONEXAO);
+        }
+    }
+
+    /**
+     * Envia um quadro com um ticker e aguarda a resposta.
+     *
+     * @param operacao A operação solicitada.
+     * @param ticker   O ticker da ação.
+     * @return O quadro de resposta.
+     * @throws IOException Se ocorrer um erro de I/O ou a conexão for encerrada.
+     */
+    private ProtocoloBinario.Quadro requisitarBinario(byte operacao, String ticker) throws IOException {
+        int requisicao = ++proximaRequisicao;
+        ProtocoloBinario.escreverTicker(escritor.iniciar(operacao, requisicao), ticker);
+        escritor.enviar();
+        return lerRespostaBinaria(requisicao);
+    }
+
+    /**
+     * Lê o próximo quadro de resposta, que deve corresponder à requisição informada.
+     *
+     * @param requisicao O identificador da requisição esperada.
+     * @return O quadro de resposta.
+     * @throws IOException Se ocorrer um erro de I/O, a conexão for encerrada ou a resposta
+     *                     não corresponder à requisição.
+     */
+    private ProtocoloBinario.Quadro lerRespostaBinaria(int requisicao) throws IOException {
+        ProtocoloBinario.Quadro resposta = ProtocoloBinario.Quadro.ler(entradaBinaria);
+        if (resposta == null) {
+            throw new EOFException("Conexão encerrada pelo servidor");
+        }
+        if (resposta.requisicao() != requisicao) {
+            throw new IOException("Resposta fora de ordem: " + resposta.requisicao());
+        }
+        return resposta;
+    }
+
+    /**
+     * Extrai o preço de um quadro de resposta a {@link ProtocoloBinario#OP_PRECO}.
+     *
+     * @param resposta O quadro de resposta.
+     * @return O preço, ou a mensagem de erro enviada pelo servidor.
+     * @throws IOException Se o conteúdo do quadro estiver incompleto.
+     */
+    private static String lerPreco(ProtocoloBinario.Quadro resposta) throws IOException {
+        DataInputStream conteudo = resposta.conteudo();
+        if (resposta.operacao() == ProtocoloBinario.RESP_ERRO) {
+            return conteudo.readUTF();
+        }
+        ProtocoloBinario.lerTicker(conteudo);
+        return ProtocoloBinario.formatarPreco(conteudo.readLong());
+    }
+
+    /**
+     * Exibe o menu e processa as opções escolhidas pelo usuário.
+     */
+    private void loopMenu() {
+        try {
+            String opcao;
+            do {
+                exibirMenu();
+                opcao = scanner.nextLine();
+                switch (opcao) {
+                    case "1":
+                        solicitarPrecoAcao();
+                        break;
+                    case "2":
+                        solicitarHistoricoPrecos();
+                        break;
+                    case "3":
+                        System.out.println("Saindo...");
+                        sair();
+                        return;
+                    default:
+                        System.out.println("Opção inválida!");
+                }
+            } while (true);
+        } catch (IOException e) {
+            System.out.println("Erro ao comunicar com o servidor: " + e.getMessage());
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Exibe o menu de opções para o usuário.
+     */
+    private void exibirMenu() {
+        System.out.println("\n=== Menu ===");
+        System.out.println("1. Solicitar preço de ação");
+        System.out.println("2. Solicitar histórico de preços");
+        System.out.println("3. Sair");
+        System.out.print("Escolha uma opção: ");
+    }
+
+    /**
+     * Informa ao servidor que o cliente vai se desconectar.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    private void sair() throws IOException {
+        if (modoBinario) {
+            escritor.iniciar(ProtocoloBinario.OP_SAIR, ++proximaRequisicao);
+            escritor.enviar();
+        } else {
+            out.println("SAIR");
+        }
+    }
+
+    /**
+     * Solicita ao usuário um ticker e exibe o preço atual da ação.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    private void solicitarPrecoAcao() throws IOException {
+        System.out.print("Digite o ticker da ação: ");
+        String ticker = scanner.nextLine();
+        String resposta = solicitarPreco(ticker);
+        System.out.println("Preço atual de " + ticker + ": " + resposta);
+    }
+
+    /**
+     * Solicita ao usuário um ticker e exibe o histórico de preços da ação.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a comunicação.
+     */
+    private void solicitarHistoricoPrecos() throws IOException {
+        System.out.print("Digite o ticker da ação: ");
+        String ticker = scanner.nextLine();
+        List<String> linhas = solicitarHistorico(ticker);
+        System.out.println("Histórico de preços de " + ticker + ":");
+        for (String linha : linhas) {
+            if (linha.equals("HISTORICO_NAO_ENCONTRADO")) {
+                System.out.println("Histórico não encontrado para " + ticker);
+                return;
+            }
+            System.out.println(linha);
+        }
+    }
+
+    /**
+     * Recebe as atualizações de preço das ações assinadas.
+     */
+    public interface OuvinteAtualizacao {
+        /**
+         * Chamado, na thread de assinaturas do cliente, quando o preço de uma ação assinada muda.
+         *
+         * @param ticker O ticker da ação.
+         * @param preco  O novo preço da ação.
+         */
+        void precoAtualizado(String ticker, String preco);
+    }
+}
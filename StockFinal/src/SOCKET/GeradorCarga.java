@@ -0,0 +1,346 @@
+package SOCKET;
+
+import METRICAS.Histograma;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A classe GeradorCarga gera carga sobre o {@link Server}, sem interação com o usuário, por
+ * meio de várias conexões de {@link Client} abertas ao mesmo tempo.
+ * <p>
+ * Os comandos {@code PRECO} e {@code HISTORICO} são enviados a uma taxa fixa, com os tickers
+ * escolhidos de forma uniforme ou por uma distribuição de Zipf, em que poucas ações recebem
+ * a maior parte das solicitações. O agendamento é em malha aberta: cada requisição tem um
+ * instante previsto de envio, calculado a partir da taxa, que não depende das respostas
+ * anteriores. Se o servidor atrasar, as requisições seguintes saem atrasadas, e a latência
+ * é medida desde o instante previsto, e não desde o envio efetivo; assim, o tempo que a
+ * requisição esperou por causa da lentidão do servidor entra na medida (correção da omissão
+ * coordenada). O tempo de serviço, medido desde o envio efetivo, é informado à parte.
+ * <p>
+ * As respostas de {@code PRECO} com um preço antigo, enviado pelo servidor porque a API não
+ * respondeu ({@code <preço> DESATUALIZADO <idade>s}), são contadas à parte
+ * ({@link Resultado#getDesatualizadas()}); assim, uma execução durante uma falha da API não
+ * parece saudável. No modo binário, o preço antigo chega como um preço comum e não é
+ * identificado.
+ */
+public class GeradorCarga {
+    /**
+     * Como os tickers das requisições são escolhidos.
+     */
+    public enum Distribuicao {
+        /** Todos os tickers têm a mesma probabilidade. */
+        UNIFORME,
+        /** O ticker de posição {@code k} tem probabilidade proporcional a {@code 1 / k^s}. */
+        ZIPF
+    }
+
+    /** Expoente padrão da distribuição de Zipf. */
+    public static final double EXPOENTE_ZIPF_PADRAO = 1.0;
+
+    private final String enderecoServidor;
+    private final int portaServidor;
+    private final int conexoes;
+    private final double taxaPorSegundo;
+    private final List<String> tickers;
+    private Distribuicao distribuicao = Distribuicao.UNIFORME;
+    private double expoenteZipf = EXPOENTE_ZIPF_PADRAO;
+    private double proporcaoHistorico;
+    private boolean modoBinario;
+
+    /**
+     * Construtor da classe GeradorCarga.
+     *
+     * @param enderecoServidor O endereço do servidor.
+     * @param portaServidor    A porta do servidor.
+     * @param conexoes         A quantidade de conexões abertas ao mesmo tempo.
+     * @param taxaPorSegundo   A quantidade de requisições por segundo, somando todas as conexões.
+     * @param tickers          Os tickers solicitados, do mais procurado para o menos procurado.
+     */
+    public GeradorCarga(String enderecoServidor, int portaServidor, int conexoes, double taxaPorSegundo,
+                        List<String> tickers) {
+        if (conexoes <= 0 || taxaPorSegundo <= 0 || tickers.isEmpty()) {
+            throw new IllegalArgumentException("Conexões, taxa e tickers devem ser informados");
+        }
+        this.enderecoServidor = enderecoServidor;
+        this.portaServidor = portaServidor;
+        this.conexoes = conexoes;
+        this.taxaPorSegundo = taxaPorSegundo;
+        this.tickers = new ArrayList<>(tickers);
+    }
+
+    /**
+     * Define a distribuição dos tickers das requisições.
+     *
+     * @param distribuicao A distribuição.
+     * @param expoenteZipf O expoente da distribuição de Zipf; ignorado na distribuição uniforme.
+     */
+    public void setDistribuicao(Distribuicao distribuicao, double expoenteZipf) {
+        if (expoenteZipf <= 0) {
+            throw new IllegalArgumentException("O expoente deve ser positivo");
+        }
+        this.distribuicao = distribuicao;
+        this.expoenteZipf = expoenteZipf;
+    }
+
+    /**
+     * Define a fração das requisições que são {@code HISTORICO}; as demais são {@code PRECO}.
+     *
+     * @param proporcaoHistorico A fração, de 0 a 1.
+     */
+    public void setProporcaoHistorico(double proporcaoHistorico) {
+        if (proporcaoHistorico < 0 || proporcaoHistorico > 1) {
+            throw new IllegalArgumentException("A proporção deve estar entre 0 e 1");
+        }
+        this.proporcaoHistorico = proporcaoHistorico;
+    }
+
+    /**
+     * Define se as conexões usam o protocolo binário em vez do protocolo de texto.
+     *
+     * @param modoBinario {@code true} para negociar o modo binário em cada conexão.
+     */
+    public void setModoBinario(boolean modoBinario) {
+        this.modoBinario = modoBinario;
+    }
+
+    /**
+     * Abre as conexões, envia as requisições durante o tempo informado e fecha as conexões.
+     * A requisição {@code i} é prevista para {@code i / taxa} segundos após o início e é
+     * enviada pela conexão {@code i % conexoes}.
+     *
+     * @param duracaoMs A duração da carga, em milissegundos.
+     * @return O resultado da execução.
+     * @throws IOException Se não for possível abrir as conexões.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda o fim da carga.
+     */
+    public Resultado executar(long duracaoMs) throws IOException, InterruptedException {
+        List<Client> clientes = new ArrayList<>(conexoes);
+        try {
+            for (int i = 0; i < conexoes; i++) {
+                Client client = new Client(enderecoServidor, portaServidor);
+                clientes.add(client);
+                client.conectar();
+                if (modoBinario && !client.ativarModoBinario()) {
+                    throw new IOException("O servidor não aceitou o modo binário");
+                }
+            }
+
+            Resultado resultado = new Resultado();
+            long total = Math.max(1, (long) (duracaoMs * taxaPorSegundo / 1_000));
+            double intervaloNanos = TimeUnit.SECONDS.toNanos(1) / taxaPorSegundo;
+            double[] acumulada = distribuicao == Distribuicao.ZIPF ? acumuladaZipf(tickers.size(), expoenteZipf) : null;
+            long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+
+            List<Thread> threads = new ArrayList<>(conexoes);
+            for (int k = 0; k < conexoes; k++) {
+                Client client = clientes.get(k);
+                int primeira = k;
+                Thread thread = new Thread(() -> {
+                    for (long i = primeira; i < total; i += conexoes) {
+                        long previsto = inicio + (long) (i * intervaloNanos);
+                        if (!enviar(client, previsto, acumulada, resultado)) {
+                            return;
+                        }
+                    }
+                }, "gerador-carga-" + k);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            resultado.duracaoNanos = System.nanoTime() - inicio;
+            return resultado;
+        } finally {
+            for (Client client : clientes) {
+                client.fechar();
+            }
+        }
+    }
+
+    /**
+     * Aguarda o instante previsto, envia uma requisição e registra as suas medidas.
+     *
+     * @return {@code false} se a conexão caiu e não deve mais ser usada.
+     */
+    private boolean enviar(Client client, long previsto, double[] acumulada, Resultado resultado) {
+        long espera;
+        while ((espera = previsto - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(espera);
+        }
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String ticker = tickers.get(acumulada != null ? sortear(acumulada, aleatorio.nextDouble()) : aleatorio.nextInt(tickers.size()));
+        boolean historico = aleatorio.nextDouble() < proporcaoHistorico;
+        long envio = System.nanoTime();
+        try {
+            boolean valida;
+            if (historico) {
+                List<String> linhas = client.solicitarHistorico(ticker);
+                valida = !linhas.isEmpty() && !linhas.get(0).startsWith("Erro");
+            } else {
+                String preco = client.solicitarPreco(ticker);
+                if (preco == null) {
+                    throw new IOException("Conexão encerrada pelo servidor");
+                }
+                valida = !preco.isEmpty() && Character.isDigit(preco.charAt(0));
+                if (valida && preco.contains(Server.MARCA_DESATUALIZADO)) {
+                    resultado.desatualizadas.increment();
+                }
+            }
+            long fim = System.nanoTime();
+            resultado.latencia.registrar(fim - previsto);
+            resultado.tempoServico.registrar(fim - envio);
+            if (!valida) {
+                resultado.erros.increment();
+            }
+            return true;
+        } catch (IOException e) {
+            resultado.erros.increment();
+            resultado.conexoesPerdidas.increment();
+            System.out.println("Erro na conexão do gerador de carga: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Calcula a distribuição acumulada de Zipf para {@code n} posições.
+     *
+     * @param n        A quantidade de posições.
+     * @param expoente O expoente da distribuição.
+     * @return A probabilidade acumulada até cada posição; a última é 1.
+     */
+    static double[] acumuladaZipf(int n, double expoente) {
+        double[] acumulada = new double[n];
+        double soma = 0;
+        for (int k = 0; k < n; k++) {
+            soma += 1 / Math.pow(k + 1, expoente);
+            acumulada[k] = soma;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulada[k] /= soma;
+        }
+        acumulada[n - 1] = 1;
+        return acumulada;
+    }
+
+    /**
+     * Sorteia uma posição de uma distribuição acumulada.
+     *
+     * @param acumulada A distribuição acumulada.
+     * @param sorteio   Um número aleatório entre 0, inclusivo, e 1, exclusivo.
+     * @return A posição sorteada.
+     */
+    static int sortear(double[] acumulada, double sorteio) {
+        int posicao = Arrays.binarySearch(acumulada, sorteio);
+        return posicao >= 0 ? posicao : -posicao - 1;
+    }
+
+    /**
+     * As medidas de uma execução do gerador de carga.
+     */
+    public static final class Resultado {
+        private final Histograma latencia = new Histograma();
+        private final Histograma tempoServico = new Histograma();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder desatualizadas = new LongAdder();
+        private final LongAdder conexoesPerdidas = new LongAdder();
+        private long duracaoNanos;
+
+        /**
+         * @return As latências desde o instante previsto de cada requisição, corrigidas para
+         *         a omissão coordenada.
+         */
+        public Histograma getLatencia() {
+            return latencia;
+        }
+
+        /**
+         * @return Os tempos desde o envio efetivo até a resposta de cada requisição.
+         */
+        public Histograma getTempoServico() {
+            return tempoServico;
+        }
+
+        /**
+         * @return A quantidade de respostas de erro e de requisições perdidas por queda da conexão.
+         */
+        public long getErros() {
+            return erros.sum();
+        }
+
+        /**
+         * @return A quantidade de respostas com um preço desatualizado, enviado porque a API
+         *         não respondeu. Elas não são contadas como erros.
+         */
+        public long getDesatualizadas() {
+            return desatualizadas.sum();
+        }
+
+        /**
+         * @return A quantidade de conexões que caíram durante a execução.
+         */
+        public long getConexoesPerdidas() {
+            return conexoesPerdidas.sum();
+        }
+
+        /**
+         * @return A vazão, em respostas por segundo.
+         */
+        public double getVazao() {
+            return duracaoNanos > 0 ? latencia.quantidade() * 1e9 / duracaoNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("respostas=%d erros=%d desatualizadas=%d conexoes_perdidas=%d duracao=%.1fs vazao=%.1f/s%n"
+                    + "latencia (desde o instante previsto): %s%n"
+                    + "tempo de servico (desde o envio): %s",
+                latencia.quantidade(), getErros(), getDesatualizadas(), getConexoesPerdidas(), duracaoNanos / 1e9,
+                getVazao(),
+                latencia, tempoServico);
+        }
+    }
+
+    /**
+     * Executa o gerador de carga pela linha de comando e imprime o resultado.
+     * <p>
+     * Uso: {@code GeradorCarga <endereço> <porta> <conexões> <taxa/s> <duração em s>
+     * <tickers separados por vírgula> [uniforme | zipf[:expoente]] [proporção de HISTORICO] [binario]}
+     *
+     * @param args Os argumentos da linha de comando.
+     */
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            System.out.println("Uso: GeradorCarga <endereço> <porta> <conexões> <taxa/s> <duração em s> "
+                + "<tickers separados por vírgula> [uniforme | zipf[:expoente]] [proporção de HISTORICO] [binario]");
+            return;
+        }
+        try {
+            GeradorCarga gerador = new GeradorCarga(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Double.parseDouble(args[3]), Arrays.asList(args[5].split(",")));
+            if (args.length > 6 && args[6].toLowerCase().startsWith("zipf")) {
+                int separador = args[6].indexOf(':');
+                gerador.setDistribuicao(Distribuicao.ZIPF,
+                    separador > 0 ? Double.parseDouble(args[6].substring(separador + 1)) : EXPOENTE_ZIPF_PADRAO);
+            }
+            if (args.length > 7) {
+                gerador.setProporcaoHistorico(Double.parseDouble(args[7]));
+            }
+            gerador.setModoBinario(args.length > 8 && "binario".equalsIgnoreCase(args[8]));
+            System.out.println(gerador.executar(TimeUnit.SECONDS.toMillis(Long.parseLong(args[4]))));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Argumento inválido: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Erro ao conectar ao servidor: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package SOCKET;
+
+import API.Preco;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A classe ProtocoloBinario define o modo binário dos protocolos entre cliente, servidor e
+ * serviço de banco de dados, negociado a partir do protocolo de texto.
+ * <p>
+ * O cliente envia a linha {@value #NEGOCIACAO} e aguarda a linha {@value #NEGOCIACAO_OK}
+ * antes de enviar o primeiro quadro. A partir daí, cada mensagem é um quadro:
+ * <pre>
+ *   int  tamanho      bytes seguintes do quadro
+ *   byte operacao     um dos códigos OP_* ou RESP_*
+ *   int  requisicao   identificador devolvido na resposta
+ *   ...  conteúdo     definido pela operação
+ * </pre>
+ * Tickers são enviados como um byte de tamanho seguido de caracteres ASCII, preços como
+ * {@code long} em ponto fixo com {@value #CASAS_DECIMAIS} casas decimais e datas como
+ * milissegundos desde a época Unix (UTC).
+ */
+public final class ProtocoloBinario {
+    /** Linha do protocolo de texto que solicita a mudança para o modo binário. */
+    public static final String NEGOCIACAO = "BINARIO";
+    /** Linha do protocolo de texto que confirma a mudança para o modo binário. */
+    public static final String NEGOCIACAO_OK = "BINARIO_OK";
+
+    /** Consulta o preço atual. Conteúdo: ticker. */
+    public static final byte OP_PRECO = 0x01;
+    /** Consulta o histórico de preços. Conteúdo: ticker. */
+    public static final byte OP_HISTORICO = 0x02;
+    /** Encerra a conexão. Sem conteúdo. */
+    public static final byte OP_SAIR = 0x03;
+    /** Salva um preço. Conteúdo: ticker, preço, data. */
+    public static final byte OP_SALVAR = 0x04;
+    /** Consulta o último preço salvo. Conteúdo: ticker. */
+    public static final byte OP_BUSCAR = 0x05;
+
+    /**
+     * Resposta com um preço. Conteúdo: ticker, preço, data. A data é a do preço: quando a API
+     * não responde, o servidor pode enviar o último preço conhecido, com a sua data original.
+     */
+    public static final byte RESP_PRECO = 0x41;
+    /** Resposta com o histórico. Conteúdo: ticker, int quantidade e os pares (data, preço). */
+    public static final byte RESP_HISTORICO = 0x42;
+    /** Confirmação sem conteúdo. */
+    public static final byte RESP_OK = 0x43;
+    /** Nenhum dado encontrado. Sem conteúdo. */
+    public static final byte RESP_NAO_ENCONTRADO = 0x44;
+    /** Erro. Conteúdo: mensagem em UTF-8 modificado ({@link DataOutputStream#writeUTF}). */
+    public static final byte RESP_ERRO = 0x7F;
+
+    /** Casas decimais dos preços em ponto fixo. */
+    public static final int CASAS_DECIMAIS = Preco.CASAS_DECIMAIS;
+    /** Tamanho máximo de um quadro, para rejeitar dados corrompidos. */
+    public static final int TAMANHO_MAXIMO_QUADRO = 1 << 20;
+
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private ProtocoloBinario() {
+    }
+
+    /**
+     * Converte um preço em texto para ponto fixo.
+     *
+     * @param preco O preço em texto, por exemplo {@code "38.5"}.
+     * @return O preço multiplicado por 10<sup>{@value #CASAS_DECIMAIS}</sup>.
+     * @throws NumberFormatException Se o texto não for um número válido.
+     * @see Preco#paraPontoFixo(CharSequence)
+     */
+    public static long paraPontoFixo(String preco) {
+        return Preco.paraPontoFixo(preco);
+    }
+
+    /**
+     * Converte um preço em ponto fixo para texto, com pelo menos duas casas decimais.
+     *
+     * @param precoPontoFixo O preço em ponto fixo.
+     * @return O preço em texto, por exemplo {@code "38.50"}.
+     */
+    public static String formatarPreco(long precoPontoFixo) {
+        return Preco.formatar(precoPontoFixo);
+    }
+
+    /**
+     * Converte uma data no formato do histórico ({@code yyyy-MM-dd HH:mm:ss}, em UTC) para
+     * milissegundos desde a época Unix. Frações de segundo, se houver, são ignoradas.
+     *
+     * @param dataHora A data em texto.
+     * @return Os milissegundos desde a época Unix.
+     */
+    public static long paraEpochMillis(String dataHora) {
+        String semFracao = dataHora.length() > 19 ? dataHora.substring(0, 19) : dataHora;
+        return LocalDateTime.parse(semFracao, FORMATO_DATA_HORA).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Formata milissegundos desde a época Unix no formato do histórico, em UTC.
+     *
+     * @param epochMillis Os milissegundos desde a época Unix.
+     * @return A data em texto.
+     */
+    public static String formatarDataHora(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000), 0, ZoneOffset.UTC).format(FORMATO_DATA_HORA);
+    }
+
+    /**
+     * Lê uma linha de texto terminada por {@code \n} byte a byte, sem ler além dela.
+     * Usado durante a negociação, antes de o fluxo passar para o modo binário.
+     *
+     * @param in O fluxo de entrada.
+     * @return A linha sem o terminador, ou {@code null} no fim do fluxo.
+     * @throws IOException Se ocorrer um erro de I/O.
+     */
+    public static String lerLinha(InputStream in) throws IOException {
+        ByteArrayOutputStream linha = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                linha.write(b);
+            }
+        }
+        if (b == -1 && linha.size() == 0) {
+            return null;
+        }
+        return linha.toString(StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Escreve um ticker como um byte de tamanho seguido dos caracteres ASCII.
+     *
+     * @param out    O fluxo de saída.
+     * @param ticker O ticker.
+     * @throws IOException Se ocorrer um erro de I/O.
+     */
+    public static void escreverTicker(DataOutputStream out, String ticker) throws IOException {
+        byte[] bytes = ticker.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > 255) {
+            throw new IOException("Ticker muito longo: " + ticker);
+        }
+        out.writeByte(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Lê um ticker escrito por {@link #escreverTicker(DataOutputStream, String)}.
+     *
+     * @param in O fluxo de entrada.
+     * @return O ticker.
+     * @throws IOException Se ocorrer um erro de I/O.
+     */
+    public static String lerTicker(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedByte()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Escreve o conteúdo de {@link #RESP_HISTORICO} a partir das linhas do histórico no
+     * formato de texto ({@code yyyy-MM-dd HH:mm:ss: preço}).
+     *
+     * @param out    O fluxo de saída.
+     * @param ticker O ticker.
+     * @param linhas As linhas do histórico em texto.
+     * @throws IOException Se ocorrer um erro de I/O.
+     * @throws IllegalArgumentException Se uma linha não estiver no formato esperado.
+     */
+    public static void escreverHistorico(DataOutputStream out, String ticker, List<String> linhas) throws IOException {
+        escreverTicker(out, ticker);
+        out.writeInt(linhas.size());
+        for (String linha : linhas) {
+            int separador = linha.lastIndexOf(": ");
+            if (separador < 0) {
+                throw new IllegalArgumentException("Linha de histórico inválida: " + linha);
+            }
+            out.writeLong(paraEpochMillis(linha.substring(0, separador)));
+            out.writeLong(paraPontoFixo(linha.substring(separador + 2)));
+        }
+    }
+
+    /**
+     * Lê o conteúdo de {@link #RESP_HISTORICO} e o converte para as linhas do formato de texto.
+     *
+     * @param in O fluxo com o conteúdo do quadro.
+     * @return As linhas do histórico em texto.
+     * @throws IOException Se ocorrer um erro de I/O.
+     */
+    public static List<String> lerHistorico(DataInputStream in) throws IOException {
+        lerTicker(in);
+        int quantidade = in.readInt();
+        List<String> linhas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            long dataHora = in.readLong();
+            long preco = in.readLong();
+            linhas.add(formatarDataHora(dataHora) + ": " + formatarPreco(preco));
+        }
+        return linhas;
+    }
+
+    /**
+     * Um quadro do modo binário. O conteúdo pode ser lido com {@link #conteudo()}.
+     */
+    public static final class Quadro {
+        private final byte operacao;
+        private final int requisicao;
+        private final byte[] dados;
+
+        private Quadro(byte operacao, int requisicao, byte[] dados) {
+            this.operacao = operacao;
+            this.requisicao = requisicao;
+            this.dados = dados;
+        }
+
+        /**
+         * Lê o próximo quadro do fluxo.
+         *
+         * @param in O fluxo de entrada.
+         * @return O quadro lido, ou {@code null} se o fluxo terminou antes do início do quadro.
+         * @throws IOException Se ocorrer um erro de I/O ou o quadro for inválido.
+         */
+        public static Quadro ler(DataInputStream in) throws IOException {
+            int tamanho;
+            try {
+                tamanho = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (tamanho < 5 || tamanho > TAMANHO_MAXIMO_QUADRO) {
+                throw new IOException("Tamanho de quadro inválido: " + tamanho);
+            }
+            byte operacao = in.readByte();
+            int requisicao = in.readInt();
+            byte[] dados = new byte[tamanho - 5];
+            in.readFully(dados);
+            return new Quadro(operacao, requisicao, dados);
+        }
+
+        /**
+         * Retorna o código da operação do quadro.
+         *
+         * @return O código da operação.
+         */
+        public byte operacao() {
+            return operacao;
+        }
+
+        /**
+         * Retorna o identificador da requisição do quadro.
+         *
+         * @return O identificador da requisição.
+         */
+        public int requisicao() {
+            return requisicao;
+        }
+
+        /**
+         * Retorna um fluxo para ler o conteúdo do quadro.
+         *
+         * @return O fluxo com o conteúdo do quadro.
+         */
+        public DataInputStream conteudo() {
+            return new DataInputStream(new ByteArrayInputStream(dados));
+        }
+    }
+
+    /**
+     * Monta um quadro na memória e o envia de uma só vez.
+     */
+    public static final class Escritor {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        private final DataOutputStream conteudo = new DataOutputStream(buffer);
+        private final DataOutputStream out;
+        private final Lock trava;
+
+        /**
+         * Construtor da classe Escritor, para um fluxo usado por uma única thread.
+         *
+         * @param out O fluxo para onde os quadros são enviados.
+         */
+        public Escritor(DataOutputStream out) {
+            this(out, new ReentrantLock());
+        }
+
+        /**
+         * Construtor da classe Escritor, para um fluxo compartilhado por várias threads.
+         * Cada thread deve ter o seu escritor, e todos devem usar a mesma trava.
+         *
+         * @param out   O fluxo para onde os quadros são enviados.
+         * @param trava A trava que garante que os quadros não se misturem no fluxo.
+         */
+        public Escritor(DataOutputStream out, Lock trava) {
+            this.out = out;
+            this.trava = trava;
+        }
+
+        /**
+         * Inicia um novo quadro, descartando qualquer conteúdo não enviado.
+         *
+         * @param operacao   O código da operação.
+         * @param requisicao O identificador da requisição.
+         * @return O fluxo onde o conteúdo do quadro deve ser escrito.
+         * @throws IOException Se ocorrer um erro de I/O.
+         */
+        public DataOutputStream iniciar(byte operacao, int requisicao) throws IOException {
+            buffer.reset();
+            conteudo.writeByte(operacao);
+            conteudo.writeInt(requisicao);
+            return conteudo;
+        }
+
+        /**
+         * Envia o quadro iniciado por {@link #iniciar(byte, int)}.
+         *
+         * @throws IOException Se ocorrer um erro de I/O.
+         */
+        public void enviar() throws IOException {
+            escrever(true);
+        }
+
+        /**
+         * Escreve o quadro iniciado por {@link #iniciar(byte, int)} no fluxo sem forçar o envio.
+         * Usado para enviar vários quadros seguidos; o fluxo deve ser esvaziado em seguida
+         * com {@link DataOutputStream#flush()}.
+         *
+         * @throws IOException Se ocorrer um erro de I/O.
+         */
+        public void enfileirar() throws IOException {
+            escrever(false);
+        }
+
+        private void escrever(boolean esvaziar) throws IOException {
+            trava.lock();
+            try {
+                out.writeInt(buffer.size());
+                buffer.writeTo(out);
+                if (esvaziar) {
+                    out.flush();
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /**
+         * Envia um quadro de erro.
+         *
+         * @param requisicao O identificador da requisição.
+         * @param mensagem   A mensagem de erro.
+         * @throws IOException Se ocorrer um erro de I/O.
+         */
+        public void enviarErro(int requisicao, String mensagem) throws IOException {
+            iniciar(RESP_ERRO, requisicao).writeUTF(mensagem);
+            enviar();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package SOCKET;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A classe RenovadorPrecos renova em segundo plano os preços das ações mais procuradas
+ * antes que expirem no {@link Cache}, para que os clientes dessas ações não esperem pela API.
+ * <p>
+ * A cada {@value #INTERVALO_MS} ms, as entradas próximas de expirar são escolhidas pela
+ * frequência de acesso e renovadas juntas, em requisições em lote à API. O número de ações
+ * renovadas por minuto é limitado por um orçamento, liberado continuamente ao longo do minuto.
+ * As ações com clientes assinantes têm prioridade sobre as demais, independentemente da frequência.
+ */
+class RenovadorPrecos {
+    /** Intervalo, em milissegundos, entre as verificações do cache. */
+    static final long INTERVALO_MS = 1_000;
+    /** Frequência mínima de acesso para que uma ação seja renovada. */
+    static final long FREQUENCIA_MINIMA = 2;
+
+    private final Server server;
+    private final Cache cache;
+    private final long antecedenciaMs;
+    private final int orcamentoPorMinuto;
+    private final ScheduledExecutorService agendador;
+    private double saldo;
+    private long ultimaVerificacao;
+
+    /**
+     * Construtor da classe RenovadorPrecos.
+     *
+     * @param server             O servidor que consulta a API e atualiza o cache.
+     * @param cache              O cache cujas entradas serão renovadas.
+     * @param antecedenciaMs     O tempo, em milissegundos, antes da expiração em que uma entrada é renovada.
+     * @param orcamentoPorMinuto O número máximo de ações renovadas por minuto.
+     */
+    RenovadorPrecos(Server server, Cache cache, long antecedenciaMs, int orcamentoPorMinuto) {
+        if (antecedenciaMs <= 0 || orcamentoPorMinuto <= 0) {
+            throw new IllegalArgumentException("Antecedência e orçamento devem ser positivos");
+        }
+        this.server = server;
+        this.cache = cache;
+        this.antecedenciaMs = antecedenciaMs;
+        this.orcamentoPorMinuto = orcamentoPorMinuto;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "renovador-precos");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Inicia as verificações periódicas.
+     */
+    void iniciar() {
+        ultimaVerificacao = System.nanoTime();
+        agendador.scheduleWithFixedDelay(this::verificar, INTERVALO_MS, INTERVALO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrompe as verificações. Uma renovação em andamento é concluída.
+     */
+    void parar() {
+        agendador.shutdown();
+    }
+
+    /**
+     * Renova as ações assinadas e as mais procuradas que estão perto de expirar, dentro do
+     * orçamento disponível.
+     */
+    void verificar() {
+        try {
+            long agora = System.nanoTime();
+            double liberado = orcamentoPorMinuto * (agora - ultimaVerificacao) / (double) TimeUnit.MINUTES.toNanos(1);
+            saldo = Math.min(orcamentoPorMinuto, saldo + liberado);
+            ultimaVerificacao = agora;
+
+            int limite = (int) saldo;
+            Set<String> tickers = new LinkedHashSet<>();
+            for (String ticker : server.tickersAssinados()) {
+                if (tickers.size() >= limite) {
+                    break;
+                }
+                if (cache.precisaRenovar(ticker, antecedenciaMs)) {
+                    tickers.add(ticker);
+                }
+            }
+            tickers.addAll(cache.obterCandidatosRenovacao(antecedenciaMs, FREQUENCIA_MINIMA, limite - tickers.size()));
+            if (tickers.isEmpty()) {
+                return;
+            }
+            saldo -= tickers.size();
+            server.renovarPrecos(tickers);
+        } catch (RuntimeException e) {
+            System.out.println("Erro ao renovar preços: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package SOCKET;
+
+/**
+ * A classe SerieTemporal guarda na memória os preços mais recentes de cada ação.
+ * <p>
+ * Cada ação tem um buffer circular de tamanho fixo, com dois arrays de {@code long}: o
+ * instante do preço, em milissegundos desde a época Unix, e o preço em ponto fixo com
+ * {@value ProtocoloBinario#CASAS_DECIMAIS} casas decimais. Quando o buffer enche, o preço
+ * mais antigo é sobrescrito. Nenhum objeto é criado por preço registrado.
+ * <p>
+ * Os buffers ficam em um array indexado pelo identificador do ticker na {@link TabelaTickers}.
+ */
+public class SerieTemporal {
+    /** Quantidade padrão de preços guardados por ação. */
+    public static final int CAPACIDADE_PADRAO = 256;
+
+    private final int capacidade;
+    private final TabelaTickers tabela;
+    private final VetorPorTicker<Anel> aneis;
+
+    /**
+     * Construtor da classe SerieTemporal, com uma tabela de tickers própria.
+     *
+     * @param capacidade A quantidade de preços guardados por ação.
+     */
+    public SerieTemporal(int capacidade) {
+        this(capacidade, new TabelaTickers());
+    }
+
+    /**
+     * Construtor da classe SerieTemporal.
+     *
+     * @param capacidade A quantidade de preços guardados por ação.
+     * @param tabela     A tabela que atribui os identificadores dos tickers.
+     */
+    public SerieTemporal(int capacidade, TabelaTickers tabela) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva");
+        }
+        this.capacidade = capacidade;
+        this.tabela = tabela;
+        this.aneis = new VetorPorTicker<>(tabela.capacidade());
+    }
+
+    /**
+     * Registra um preço de uma ação.
+     *
+     * @param ticker         O ticker da ação.
+     * @param epochMillis    O instante do preço, em milissegundos desde a época Unix.
+     * @param precoPontoFixo O preço em ponto fixo.
+     * @throws IllegalStateException Se o ticker for novo e a tabela de tickers estiver cheia.
+     */
+    public void registrar(String ticker, long epochMillis, long precoPontoFixo) {
+        int id = tabela.id(ticker);
+        Anel anel = aneis.obter(id);
+        if (anel == null) {
+            aneis.trocar(id, null, new Anel(capacidade));
+            anel = aneis.obter(id);
+        }
+        anel.registrar(epochMillis, precoPontoFixo);
+    }
+
+    /**
+     * Copia os preços mais recentes de uma ação, do mais recente para o mais antigo.
+     *
+     * @param ticker  O ticker da ação.
+     * @param tempos  O array que recebe os instantes dos preços.
+     * @param precos  O array que recebe os preços em ponto fixo.
+     * @return A quantidade de preços copiados, limitada ao tamanho dos arrays.
+     */
+    public int recentes(String ticker, long[] tempos, long[] precos) {
+        Anel anel = buscar(ticker);
+        return anel != null ? anel.copiar(tempos, precos, Math.min(tempos.length, precos.length)) : 0;
+    }
+
+    /**
+     * Retorna a quantidade de preços guardados de uma ação.
+     *
+     * @param ticker O ticker da ação.
+     * @return A quantidade de preços, no máximo igual à capacidade.
+     */
+    public int tamanho(String ticker) {
+        Anel anel = buscar(ticker);
+        return anel != null ? anel.tamanho() : 0;
+    }
+
+    private Anel buscar(String ticker) {
+        int id = tabela.buscar(ticker);
+        return id != TabelaTickers.AUSENTE ? aneis.obter(id) : null;
+    }
+
+    /**
+     * O buffer circular de uma ação.
+     */
+    private static final class Anel {
+        private final long[] tempos;
+        private final long[] precos;
+        private int proximo;
+        private int tamanho;
+
+        Anel(int capacidade) {
+            this.tempos = new long[capacidade];
+            this.precos = new long[capacidade];
+        }
+
+        synchronized void registrar(long epochMillis, long precoPontoFixo) {
+            tempos[proximo] = epochMillis;
+            precos[proximo] = precoPontoFixo;
+            proximo = (proximo + 1) % tempos.length;
+            if (tamanho < tempos.length) {
+                tamanho++;
+            }
+        }
+
+        synchronized int copiar(long[] destinoTempos, long[] destinoPrecos, int limite) {
+            int quantidade = Math.min(limite, tamanho);
+            int posicao = proximo;
+            for (int i = 0; i < quantidade; i++) {
+                posicao = (posicao == 0 ? tempos.length : posicao) - 1;
+                destinoTempos[i] = tempos[posicao];
+                destinoPrecos[i] = precos[posicao];
+            }
+            return quantidade;
+        }
+
+        synchronized int tamanho() {
+            return tamanho;
+        }
+    }
+}
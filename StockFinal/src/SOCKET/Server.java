@@ -1,221 +1,1057 @@
-package SOCKET;
-
-import API.API_Client;
-import java.io.*;
-import java.net.*;
-import com.google.gson.*;
-
-/**
- * A classe Server representa um servidor que atende solicitações de clientes para
- * obter preços de ações e históricos de preços.
- */
-public class Server {
-    private ServerSocket serverSocket;
-    private volatile boolean rodando = true;
-    private Cache cache;
-    private String enderecoBanco;
-    private int portaBanco;
-    private int portaServidor;
-    private API_Client apiClient;
-
-    /**
-     * Construtor da classe Server.
-     *
-     * @param cache O cache utilizado para armazenar preços de ações.
-     * @param portaServidor A porta na qual o servidor será iniciado.
-     * @param enderecoBanco O endereço do servidor do banco de dados.
-     * @param portaBanco A porta do servidor do banco de dados.
-     * @param apiBaseUrl A URL base da API utilizada para obter preços de ações.
-     * @param apiToken O token de autenticação da API.
-     */
-    public Server(Cache cache, int portaServidor, String enderecoBanco, int portaBanco, String apiBaseUrl, String apiToken) {
-        this.cache = cache;
-        this.portaServidor = portaServidor;
-        this.enderecoBanco = enderecoBanco;
-        this.portaBanco = portaBanco;
-        this.apiClient = new API_Client(apiBaseUrl, apiToken);
-    }
-
-    /**
-     * Inicia o servidor e aguarda conexões de clientes.
-     *
-     * @throws IOException Se ocorrer um erro de I/O durante a inicialização do servidor.
-     */
-    public void iniciar() throws IOException {
-        System.out.println("Servidor iniciando na porta: " + portaServidor);
-        serverSocket = new ServerSocket(portaServidor);
-
-        while (rodando) {
-            Socket clientSocket = serverSocket.accept();
-            new Thread(new ManipuladorCliente(clientSocket)).start();
-        }
-    }
-
-    /**
-     * Para o servidor e fecha o socket do servidor.
-     */
-    public void parar() {
-        rodando = false;
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            System.out.println("Erro ao fechar o servidor: " + e.getMessage());
-        }
-    }
-
-    /**
-     * A classe interna ManipuladorCliente é responsável por processar as solicitações
-     * de cada cliente conectado ao servidor.
-     */
-    private class ManipuladorCliente implements Runnable {
-        private Socket clientSocket;
-
-        /**
-         * Construtor da classe ManipuladorCliente.
-         *
-         * @param clientSocket O socket do cliente conectado.
-         */
-        public ManipuladorCliente(Socket clientSocket) {
-            this.clientSocket = clientSocket;
-        }
-
-        /**
-         * Método principal que processa as solicitações do cliente.
-         */
-        @Override
-        public void run() {
-            try (
-                BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-            ) {
-                String entrada;
-                while ((entrada = in.readLine()) != null) {
-                    if ("SAIR".equalsIgnoreCase(entrada)) {
-                        break;
-                    }
-
-                    String[] partes = entrada.split(" ", 2);
-                    if (partes.length != 2) {
-                        out.println("Comando inválido");
-                        continue;
-                    }
-
-                    String comando = partes[0];
-                    String ticker = partes[1];
-                    String resposta = processarComando(comando, ticker);
-                    out.println(resposta);
-                }
-            } catch (IOException e) {
-                System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
-            } finally {
-                try {
-                    clientSocket.close();
-                } catch (IOException e) {
-                    System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
-                }
-            }
-        }
-
-        /**
-         * Processa o comando recebido do cliente.
-         *
-         * @param comando O comando enviado pelo cliente.
-         * @param ticker O ticker da ação solicitado pelo cliente.
-         * @return A resposta correspondente ao comando processado.
-         */
-        private String processarComando(String comando, String ticker) {
-            switch (comando.toUpperCase()) {
-                case "PRECO":
-                    return obterPrecoAtual(ticker);
-                case "HISTORICO":
-                    return obterHistoricoPrecos(ticker);
-                default:
-                    return "Comando desconhecido";
-            }
-        }
-
-        /**
-         * Obtém o preço atual de uma ação.
-         *
-         * @param ticker O ticker da ação.
-         * @return O preço atual da ação ou uma mensagem de erro se não for possível obter o preço.
-         */
-        private String obterPrecoAtual(String ticker) {
-            String precoCache = cache.obterPreco(ticker);
-            if (precoCache == null) {
-                String respostaAPI = apiClient.obterPrecoAcao(ticker);
-                if (respostaAPI != null) {
-                    try {
-                        Gson gson = new Gson();
-                        JsonObject json = gson.fromJson(respostaAPI, JsonObject.class);
-                        JsonArray results = json.getAsJsonArray("results");
-                        if (results != null && results.size() > 0) {
-                            JsonObject stockInfo = results.get(0).getAsJsonObject();
-                            String novoPreco = stockInfo.get("regularMarketPrice").getAsString();
-
-                            cache.atualizarCache(ticker, novoPreco);
-                            salvarPrecoBanco(ticker, novoPreco);
-
-                            return novoPreco;
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Erro ao processar JSON: " + e.getMessage());
-                    }
-                }
-                return "Preço não disponível";
-            }
-            return precoCache;
-        }
-
-        /**
-         * Salva o preço de uma ação no banco de dados.
-         *
-         * @param ticker O ticker da ação.
-         * @param preco O preço da ação a ser salvo.
-         */
-        private void salvarPrecoBanco(String ticker, String preco) {
-            try (Socket socketBanco = new Socket(enderecoBanco, portaBanco);
-                 PrintWriter out = new PrintWriter(socketBanco.getOutputStream(), true);
-                 BufferedReader in = new BufferedReader(new InputStreamReader(socketBanco.getInputStream()))) {
-                out.println("SALVAR " + ticker + " " + preco);
-                String confirmacao = in.readLine();
-                if ("PRECO_SALVO".equals(confirmacao)) {
-                    System.out.println("Preço salvo no banco de dados com sucesso.");
-                } else {
-                    System.out.println("Erro ao salvar no banco de dados: " + confirmacao);
-                }
-            } catch (IOException e) {
-                System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
-            }
-        }
-
-        /**
-         * Obtém o histórico de preços de uma ação.
-         *
-         * @param ticker O ticker da ação.
-         * @return O histórico de preços da ação ou uma mensagem de erro se não for possível obter o histórico.
-         */
-        private String obterHistoricoPrecos(String ticker) {
-            try (Socket socketBanco = new Socket(enderecoBanco, portaBanco);
-                 PrintWriter out = new PrintWriter(socketBanco.getOutputStream(), true);
-                 BufferedReader in = new BufferedReader(new InputStreamReader(socketBanco.getInputStream()))) {
-                out.println("HISTORICO " + ticker);
-                StringBuilder historico = new StringBuilder();
-                String linha;
-                while ((linha = in.readLine()) != null && !linha.equals("FIM_HISTORICO")) {
-                    historico.append(linha).append("\n");
-                }
-                if (historico.length() == 0) {
-                    return "HISTORICO_NAO_ENCONTRADO\nFIM_HISTORICO";
-                }
-                historico.append("FIM_HISTORICO");
-                return historico.toString();
-            } catch (IOException e) {
-                System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
-                return "Erro ao obter histórico\nFIM_HISTORICO";
-            }
-        }
-    }
-}
+package SOCKET;
+
+import API.API_Client;
+import API.Cotacao;
+import API.DisjuntorCircuito;
+import API.Preco;
+import METRICAS.Histograma;
+import METRICAS.Metricas;
+import java.io.*;
+import java.net.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A classe Server representa um servidor que atende solicitações de clientes para
+ * obter preços de ações e históricos de preços.
+ * <p>
+ * O tempo de atendimento de cada comando, as conexões ativas e os números do cache, da API
+ * e do canal com o banco de dados são registrados nas {@link Metricas#global() métricas do
+ * processo}, enviadas aos clientes pelo comando {@code STATS}.
+ */
+public class Server {
+    /** Tempo máximo, em milissegundos, que uma busca compartilhada na API pode levar. */
+    private static final long TEMPO_MAXIMO_BUSCA_MS = 15_000;
+    /** Quantidade de conexões persistentes mantidas com o serviço de banco de dados. */
+    private static final int CONEXOES_BANCO = 4;
+    private static final String PRECO_INDISPONIVEL = "Preço não disponível";
+    /** Marca, nas respostas de texto, um preço antigo enviado porque a API não respondeu. */
+    static final String MARCA_DESATUALIZADO = "DESATUALIZADO";
+    /** Quantidade de preços do histórico recente, a mesma retornada pelo serviço de banco de dados. */
+    private static final int LIMITE_HISTORICO_RECENTE = 10;
+    /** Quantidade de preços carregados entre dois avisos de progresso do aquecimento do cache. */
+    private static final int INTERVALO_PROGRESSO_AQUECIMENTO = 1_000;
+
+    private static final Histograma LATENCIA_PRECO = Metricas.global().histograma("servidor.comando.PRECO");
+    private static final Histograma LATENCIA_MPRECO = Metricas.global().histograma("servidor.comando.MPRECO");
+    private static final Histograma LATENCIA_HISTORICO = Metricas.global().histograma("servidor.comando.HISTORICO");
+
+    private ServerSocket serverSocket;
+    private volatile ServerNIO servidorNIO;
+    private volatile RenovadorPrecos renovador;
+    private Executor executorConexoes;
+    private volatile boolean rodando = true;
+    private Cache cache;
+    private String enderecoBanco;
+    private int portaBanco;
+    private int portaServidor;
+    private API_Client apiClient;
+    private final CanalBanco canalBanco;
+    private final ConcurrentMap<String, CompletableFuture<String>> buscasEmAndamento = new ConcurrentHashMap<>();
+    private final SerieTemporal serieTemporal;
+    private final Assinaturas assinaturas = new Assinaturas();
+    private final AtomicInteger conexoesAtivas = new AtomicInteger();
+    private volatile long idadeMaximaAquecimentoMs;
+
+    /**
+     * Construtor da classe Server.
+     *
+     * @param cache O cache utilizado para armazenar preços de ações.
+     * @param portaServidor A porta na qual o servidor será iniciado.
+     * @param enderecoBanco O endereço do servidor do banco de dados.
+     * @param portaBanco A porta do servidor do banco de dados.
+     * @param apiBaseUrl A URL base da API utilizada para obter preços de ações.
+     * @param apiToken O token de autenticação da API.
+     */
+    public Server(Cache cache, int portaServidor, String enderecoBanco, int portaBanco, String apiBaseUrl, String apiToken) {
+        this(cache, portaServidor, enderecoBanco, portaBanco, new API_Client(apiBaseUrl, apiToken));
+    }
+
+    /**
+     * Construtor da classe Server que consulta os preços pelo cliente da API informado, por
+     * exemplo um {@link API_Client} que reproduz cotações gravadas.
+     *
+     * @param cache O cache utilizado para armazenar preços de ações.
+     * @param portaServidor A porta na qual o servidor será iniciado.
+     * @param enderecoBanco O endereço do servidor do banco de dados.
+     * @param portaBanco A porta do servidor do banco de dados.
+     * @param apiClient O cliente da API utilizado para obter preços de ações.
+     */
+    public Server(Cache cache, int portaServidor, String enderecoBanco, int portaBanco, API_Client apiClient) {
+        this.cache = cache;
+        this.portaServidor = portaServidor;
+        this.enderecoBanco = enderecoBanco;
+        this.portaBanco = portaBanco;
+        this.apiClient = apiClient;
+        this.canalBanco = new CanalBanco(enderecoBanco, portaBanco, CONEXOES_BANCO);
+        this.serieTemporal = new SerieTemporal(SerieTemporal.CAPACIDADE_PADRAO, cache.getTabelaTickers());
+        cache.adicionarOuvinte(assinaturas);
+        registrarMedidores();
+    }
+
+    /**
+     * Registra nas métricas do processo os medidores do servidor e dos componentes que ele usa.
+     */
+    private void registrarMedidores() {
+        Metricas metricas = Metricas.global();
+        metricas.medidor("servidor.conexoes_ativas", conexoesAtivas::get);
+        metricas.medidor("servidor.buscas_em_andamento", buscasEmAndamento::size);
+        metricas.medidor("servidor.canal_banco.pendentes", canalBanco::pendentes);
+        metricas.medidor("cache.tamanho", cache::tamanho);
+        metricas.medidor("cache.acertos", cache::obterAcertos);
+        metricas.medidor("cache.falhas", cache::obterFalhas);
+        metricas.medidor("cache.remocoes", cache::obterRemocoes);
+        metricas.medidor("api.disjuntor_aberto",
+            () -> apiClient.getEstadoDisjuntor() == DisjuntorCircuito.Estado.FECHADO ? 0 : 1);
+    }
+
+    /**
+     * Inicia o servidor e aguarda conexões de clientes.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a inicialização do servidor.
+     */
+    public void iniciar() throws IOException {
+        System.out.println("Servidor iniciando na porta: " + portaServidor);
+        serverSocket = new ServerSocket(portaServidor);
+        // As conexões que chegam durante o aquecimento aguardam na fila do socket.
+        if (idadeMaximaAquecimentoMs > 0) {
+            aquecerCache(idadeMaximaAquecimentoMs);
+        }
+
+        while (rodando) {
+            Socket clientSocket = serverSocket.accept();
+            if (executorConexoes != null) {
+                executorConexoes.execute(new ManipuladorCliente(clientSocket));
+            } else {
+                new Thread(new ManipuladorCliente(clientSocket)).start();
+            }
+        }
+    }
+
+    /**
+     * Define o executor usado por {@link #iniciar()} para atender cada conexão.
+     * Se nenhum executor for definido, é criada uma nova thread por conexão.
+     *
+     * @param executorConexoes O executor das conexões, ou {@code null} para uma thread por conexão.
+     */
+    public void setExecutorConexoes(Executor executorConexoes) {
+        this.executorConexoes = executorConexoes;
+    }
+
+    /**
+     * Faz {@link #iniciar()} e {@link #iniciarNIO(int, int)} aquecerem o cache com os preços
+     * do banco de dados antes de atender as conexões (veja {@link #aquecerCache(long)}).
+     *
+     * @param idadeMaximaMs A idade máxima, em milissegundos, dos preços carregados, ou 0 para
+     *                      iniciar com o cache vazio.
+     */
+    public void setAquecimentoCache(long idadeMaximaMs) {
+        this.idadeMaximaAquecimentoMs = idadeMaximaMs;
+    }
+
+    /**
+     * Carrega no cache e na série temporal o preço mais recente de cada ação guardado no
+     * banco de dados, para que a partida do servidor não cause uma rajada de consultas à API.
+     * <p>
+     * Os preços são pedidos com o comando {@code ULTIMOS}, em uma conexão dedicada, e
+     * carregados à medida que chegam. Preços mais antigos que a idade máxima não são
+     * enviados pelo banco; os que são mais antigos que o TTL do cache só entram na série
+     * temporal, onde servem de último preço conhecido se a API falhar. O progresso e a
+     * duração são informados na saída padrão. Se o banco de dados não responder, o servidor
+     * segue com os preços carregados até então.
+     *
+     * @param idadeMaximaMs A idade máxima, em milissegundos, dos preços carregados.
+     * @return A quantidade de preços incluídos no cache.
+     */
+    public int aquecerCache(long idadeMaximaMs) {
+        long inicio = System.nanoTime();
+        LocalDateTime desde = LocalDateTime.ofInstant(Instant.ofEpochMilli(System.currentTimeMillis() - idadeMaximaMs),
+            ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        System.out.println("Aquecendo o cache com os preços desde " + desde);
+        int lidos = 0;
+        int carregados = 0;
+        try (
+            Socket socketBanco = new Socket(enderecoBanco, portaBanco);
+            PrintWriter out = new PrintWriter(socketBanco.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socketBanco.getInputStream()));
+        ) {
+            out.println("ULTIMOS " + desde);
+            String linha;
+            while (!"FIM_ULTIMOS".equals(linha = in.readLine())) {
+                if (linha == null) {
+                    throw new EOFException("Conexão com o banco de dados encerrada");
+                }
+                String[] registro = linha.split(", ");
+                if (registro.length < 3) {
+                    System.out.println("Resposta inesperada do banco de dados no aquecimento do cache: " + linha);
+                    continue;
+                }
+                try {
+                    String ticker = normalizarTicker(registro[0]);
+                    long preco = Preco.paraPontoFixo(registro[1]);
+                    long obtidoEm = ProtocoloBinario.paraEpochMillis(registro[2]);
+                    serieTemporal.registrar(ticker, obtidoEm, preco);
+                    if (cache.carregar(ticker, preco, obtidoEm)) {
+                        carregados++;
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("Preço inválido ignorado no aquecimento do cache: " + linha);
+                }
+                if (++lidos % INTERVALO_PROGRESSO_AQUECIMENTO == 0) {
+                    System.out.println("Aquecimento do cache: " + lidos + " preços lidos");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Aquecimento do cache interrompido: " + e.getMessage());
+        }
+        System.out.println("Cache aquecido com " + carregados + " de " + lidos + " preços lidos em "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) + " ms");
+        return carregados;
+    }
+
+    /**
+     * Retorna a série temporal com os preços mais recentes obtidos da API.
+     *
+     * @return A série temporal do servidor.
+     */
+    public SerieTemporal getSerieTemporal() {
+        return serieTemporal;
+    }
+
+    /**
+     * Inicia o servidor no modo NIO e aguarda conexões de clientes.
+     * Neste modo, poucas threads de I/O atendem todas as conexões por meio de um
+     * {@link java.nio.channels.Selector}, e os comandos são processados em um pool de
+     * trabalhadores. O protocolo e as respostas são os mesmos de {@link #iniciar()}.
+     *
+     * @param threadsIO       A quantidade de threads de I/O.
+     * @param threadsTrabalho A quantidade de threads que processam os comandos.
+     * @throws IOException Se ocorrer um erro de I/O durante a inicialização do servidor.
+     */
+    public void iniciarNIO(int threadsIO, int threadsTrabalho) throws IOException {
+        System.out.println("Servidor NIO iniciando na porta: " + portaServidor);
+        if (idadeMaximaAquecimentoMs > 0) {
+            aquecerCache(idadeMaximaAquecimentoMs);
+        }
+        servidorNIO = new ServerNIO(this, portaServidor, threadsIO, threadsTrabalho);
+        servidorNIO.iniciar();
+    }
+
+    /**
+     * Para o servidor e fecha o socket do servidor. Se o cache grava snapshots
+     * periódicos, um último snapshot é gravado.
+     */
+    public void parar() {
+        rodando = false;
+        if (servidorNIO != null) {
+            servidorNIO.parar();
+        }
+        if (renovador != null) {
+            renovador.parar();
+        }
+        cache.pararSnapshotPeriodico();
+        canalBanco.fechar();
+        try {
+            if (serverSocket != null && !serverSocket.isClosed()) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao fechar o servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Normaliza um ticker recebido de um cliente, para que as variações de maiúsculas e
+     * minúsculas do mesmo ticker compartilhem a entrada do cache, a busca em andamento e o
+     * identificador da {@link TabelaTickers}, que nunca é liberado.
+     *
+     * @param ticker O ticker como enviado pelo cliente.
+     * @return O ticker em maiúsculas.
+     */
+    static String normalizarTicker(String ticker) {
+        return ticker.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Processa uma linha recebida do cliente no protocolo de texto.
+     *
+     * @param entrada A linha enviada pelo cliente, sem o terminador de linha.
+     * @return A resposta a ser enviada ao cliente, ou {@code null} se o cliente pediu para sair.
+     */
+    String processarEntrada(String entrada) {
+        if ("SAIR".equalsIgnoreCase(entrada)) {
+            return null;
+        }
+        if ("STATS".equalsIgnoreCase(entrada)) {
+            return obterEstatisticas();
+        }
+
+        String[] partes = entrada.split(" ", 2);
+        if (partes.length != 2 || partes[1].isBlank()) {
+            return "Comando inválido";
+        }
+
+        String comando = partes[0];
+        String ticker = partes[1];
+        return processarComando(comando, ticker);
+    }
+
+    /**
+     * Processa uma linha recebida do cliente no protocolo de texto, enviando a resposta
+     * linha a linha. O histórico por período é repassado do serviço de banco de dados à
+     * medida que chega, sem ser acumulado; os demais comandos são respondidos como em
+     * {@link #processarEntrada(String)}.
+     *
+     * @param entrada A linha enviada pelo cliente, sem o terminador de linha.
+     * @param saida   O destino das linhas da resposta.
+     * @return {@code false} se o cliente pediu para sair.
+     */
+    boolean processarEntrada(String entrada, Consumer<String> saida) {
+        String[] partes = entrada.split(" ", 3);
+        if (partes.length == 3 && "HISTORICO".equalsIgnoreCase(partes[0]) && !partes[1].isEmpty()) {
+            long inicio = System.nanoTime();
+            transmitirHistoricoPeriodo(normalizarTicker(partes[1]) + " " + partes[2], saida);
+            LATENCIA_HISTORICO.registrarDesde(inicio);
+            return true;
+        }
+        String resposta = processarEntrada(entrada);
+        if (resposta == null) {
+            return false;
+        }
+        saida.accept(resposta);
+        return true;
+    }
+
+    /**
+     * Processa o comando recebido do cliente.
+     *
+     * @param comando O comando enviado pelo cliente.
+     * @param ticker O ticker da ação solicitado pelo cliente; no comando {@code MPRECO},
+     *               vários tickers separados por espaços, e no comando {@code HISTORICO},
+     *               opcionalmente seguido de início, fim, limite e cursor. Os tickers são
+     *               normalizados para maiúsculas.
+     * @return A resposta correspondente ao comando processado.
+     */
+    String processarComando(String comando, String ticker) {
+        long inicio = System.nanoTime();
+        ticker = normalizarTicker(ticker);
+        String resposta;
+        Histograma latencia;
+        switch (comando.toUpperCase()) {
+            case "PRECO":
+                resposta = obterPrecoAtual(ticker);
+                latencia = LATENCIA_PRECO;
+                break;
+            case "MPRECO":
+                resposta = obterPrecosMultiplos(ticker);
+                latencia = LATENCIA_MPRECO;
+                break;
+            case "HISTORICO":
+                resposta = obterHistoricoPrecos(ticker);
+                latencia = LATENCIA_HISTORICO;
+                break;
+            default:
+                return "Comando desconhecido";
+        }
+        latencia.registrarDesde(inicio);
+        return resposta;
+    }
+
+    /**
+     * Monta a resposta do comando {@code STATS}: o relatório das métricas do processo, uma
+     * métrica por linha, terminado por {@code FIM_STATS}.
+     *
+     * @return As linhas do relatório.
+     */
+    private String obterEstatisticas() {
+        StringBuilder estatisticas = new StringBuilder();
+        for (String linha : Metricas.global().relatorio()) {
+            estatisticas.append(linha).append("\n");
+        }
+        return estatisticas.append("FIM_STATS").toString();
+    }
+
+    /**
+     * Registra a abertura de uma conexão de cliente.
+     */
+    void conexaoAberta() {
+        conexoesAtivas.incrementAndGet();
+    }
+
+    /**
+     * Registra o encerramento de uma conexão de cliente.
+     */
+    void conexaoEncerrada() {
+        conexoesAtivas.decrementAndGet();
+    }
+
+    /**
+     * Obtém o preço atual de uma ação.
+     * Em caso de falha no cache, a busca é compartilhada com as demais solicitações
+     * do mesmo ticker que estiverem em andamento.
+     *
+     * @param ticker O ticker da ação.
+     * @return O preço atual da ação ou uma mensagem de erro se não for possível obter o preço.
+     */
+    private String obterPrecoAtual(String ticker) {
+        long precoCache = cache.obterPrecoPontoFixo(ticker);
+        if (precoCache != Cache.SEM_PRECO) {
+            return Preco.formatar(precoCache);
+        }
+        return buscarPrecoAtual(ticker);
+    }
+
+    /**
+     * Busca o preço atual de uma ação ausente do cache, compartilhando a busca com as demais
+     * solicitações do mesmo ticker que estiverem em andamento. Se a API falhar, é enviado o
+     * último preço conhecido, marcado como desatualizado (veja {@link #responderSemAPI(String)}).
+     *
+     * @param ticker O ticker da ação.
+     * @return O preço atual da ação, o último preço conhecido ou uma mensagem de erro se não
+     *         houver preço.
+     */
+    private String buscarPrecoAtual(String ticker) {
+        try {
+            return buscarPrecoCompartilhado(ticker);
+        } catch (CompletionException | CancellationException e) {
+            informarFalhaBusca(ticker, e);
+            return responderSemAPI(ticker);
+        }
+    }
+
+    /**
+     * Monta a resposta de texto para uma ação cujo preço não pôde ser obtido da API.
+     * Se houver um preço conhecido, a resposta é {@code <preço> DESATUALIZADO <idade>s}, com
+     * a idade do preço em segundos; caso contrário, é a mensagem de preço indisponível.
+     *
+     * @param ticker O ticker da ação.
+     * @return A resposta para a ação.
+     */
+    private String responderSemAPI(String ticker) {
+        long[] ultimo = buscarUltimoPrecoConhecido(ticker);
+        if (ultimo == null) {
+            return PRECO_INDISPONIVEL;
+        }
+        long idadeSegundos = Math.max(0, System.currentTimeMillis() - ultimo[1]) / 1000;
+        return Preco.formatar(ultimo[0]) + " " + MARCA_DESATUALIZADO + " " + idadeSegundos + "s";
+    }
+
+    /**
+     * Busca o último preço conhecido de uma ação, para quando a API não responde: primeiro
+     * na série temporal da memória, que guarda os preços mesmo depois que expiram do cache,
+     * e depois no serviço de banco de dados.
+     *
+     * @param ticker O ticker da ação.
+     * @return Um array com o preço em ponto fixo e o seu instante, em milissegundos desde a
+     *         época Unix, ou {@code null} se não houver preço conhecido.
+     */
+    private long[] buscarUltimoPrecoConhecido(String ticker) {
+        long[] tempos = new long[1];
+        long[] precos = new long[1];
+        if (serieTemporal.recentes(ticker, tempos, precos) > 0) {
+            return new long[]{precos[0], tempos[0]};
+        }
+        try {
+            String[] registro = canalBanco.enviar("BUSCAR " + ticker).split(", ");
+            if (registro.length < 3) {
+                return null;
+            }
+            return new long[]{Preco.paraPontoFixo(registro[1]), ProtocoloBinario.paraEpochMillis(registro[2])};
+        } catch (IOException e) {
+            System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.out.println("Último preço de " + ticker + " inválido no banco de dados: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static void informarFalhaBusca(String ticker, RuntimeException e) {
+        Throwable causa = e.getCause() != null ? e.getCause() : e;
+        System.out.println("Erro ao obter preço de " + ticker + ": " + causa.getMessage());
+    }
+
+    /**
+     * Obtém o preço atual de várias ações em uma única resposta, no formato
+     * {@code TICKER=preço;TICKER=preço}, na ordem em que os tickers foram informados.
+     * Os tickers ausentes do cache são consultados juntos, por {@link #obterPrecos(Collection)}.
+     *
+     * @param tickers Os tickers das ações, separados por espaços ou vírgulas.
+     * @return Os preços das ações, ou uma mensagem de erro para as ações sem preço disponível.
+     */
+    private String obterPrecosMultiplos(String tickers) {
+        List<String> lista = new ArrayList<>();
+        for (String ticker : tickers.trim().split("[\\s,]+")) {
+            if (!ticker.isEmpty()) {
+                lista.add(ticker);
+            }
+        }
+        if (lista.isEmpty()) {
+            return "Comando inválido";
+        }
+        StringBuilder resposta = new StringBuilder();
+        for (Map.Entry<String, String> preco : obterPrecos(lista).entrySet()) {
+            if (resposta.length() > 0) {
+                resposta.append(';');
+            }
+            resposta.append(preco.getKey()).append('=').append(preco.getValue());
+        }
+        return resposta.toString();
+    }
+
+    /**
+     * Obtém o histórico de preços de uma ação.
+     *
+     * @param ticker O ticker da ação.
+     * @return O histórico de preços da ação ou uma mensagem de erro se não for possível obter o histórico.
+     */
+    private String obterHistoricoPrecos(String ticker) {
+        try {
+            List<String> linhas = buscarHistoricoRecente(ticker);
+            StringBuilder historico = new StringBuilder();
+            for (String linha : linhas) {
+                historico.append(linha).append("\n");
+            }
+            if (historico.length() == 0) {
+                return "HISTORICO_NAO_ENCONTRADO\nFIM_HISTORICO";
+            }
+            historico.append("FIM_HISTORICO");
+            return historico.toString();
+        } catch (IOException e) {
+            System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
+            return "Erro ao obter histórico\nFIM_HISTORICO";
+        }
+    }
+
+    /**
+     * Repassa ao cliente uma página do histórico por período, linha a linha, à medida que
+     * é recebida do serviço de banco de dados. Usa uma conexão dedicada, e não o
+     * {@link CanalBanco}, para que um cliente lento não atrase as demais requisições.
+     *
+     * @param argumentos O ticker seguido de início, fim e, opcionalmente, limite e cursor.
+     * @param saida      O destino das linhas da resposta, terminada por {@code FIM_HISTORICO}.
+     */
+    private void transmitirHistoricoPeriodo(String argumentos, Consumer<String> saida) {
+        try (
+            Socket socketBanco = new Socket(enderecoBanco, portaBanco);
+            PrintWriter out = new PrintWriter(socketBanco.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socketBanco.getInputStream()));
+        ) {
+            out.println("HISTORICO " + argumentos);
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                saida.accept(linha);
+                if (linha.equals("FIM_HISTORICO")) {
+                    return;
+                }
+            }
+            throw new EOFException("Conexão com o banco de dados encerrada");
+        } catch (IOException e) {
+            System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
+            saida.accept("Erro ao obter histórico");
+            saida.accept("FIM_HISTORICO");
+        }
+    }
+
+    /**
+     * Obtém as linhas do histórico recente de uma ação. Se os preços mais recentes já
+     * estiverem na {@link SerieTemporal}, o histórico é montado a partir da memória; caso
+     * contrário, é buscado no serviço de banco de dados. Nos dois casos, as datas estão em UTC.
+     *
+     * @param ticker O ticker da ação.
+     * @return As linhas do histórico, do preço mais recente para o mais antigo, sem o
+     *         terminador {@code FIM_HISTORICO}.
+     * @throws IOException Se não for possível comunicar com o serviço de banco de dados.
+     */
+    private List<String> buscarHistoricoRecente(String ticker) throws IOException {
+        long[] tempos = new long[LIMITE_HISTORICO_RECENTE];
+        long[] precos = new long[LIMITE_HISTORICO_RECENTE];
+        int quantidade = serieTemporal.recentes(ticker, tempos, precos);
+        if (quantidade < LIMITE_HISTORICO_RECENTE) {
+            return buscarHistoricoBanco(ticker);
+        }
+        List<String> linhas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            linhas.add(ProtocoloBinario.formatarDataHora(tempos[i]) + ": " + ProtocoloBinario.formatarPreco(precos[i]));
+        }
+        return linhas;
+    }
+
+    /**
+     * Busca as linhas do histórico de uma ação no serviço de banco de dados.
+     *
+     * @param ticker O ticker da ação.
+     * @return As linhas do histórico, sem o terminador {@code FIM_HISTORICO}.
+     * @throws IOException Se não for possível comunicar com o serviço de banco de dados.
+     */
+    private List<String> buscarHistoricoBanco(String ticker) throws IOException {
+        return canalBanco.enviar("HISTORICO " + ticker, "FIM_HISTORICO");
+    }
+
+    /**
+     * Atende um cliente no modo binário do protocolo, depois da negociação.
+     *
+     * @param entrada O fluxo de entrada do cliente.
+     * @param saida   O fluxo de saída do cliente.
+     * @throws IOException Se ocorrer um erro de I/O na comunicação com o cliente.
+     * @see ProtocoloBinario
+     */
+    private void atenderBinario(DataInputStream entrada, DataOutputStream saida) throws IOException {
+        ProtocoloBinario.Escritor escritor = new ProtocoloBinario.Escritor(saida);
+        ProtocoloBinario.Quadro quadro;
+        while ((quadro = ProtocoloBinario.Quadro.ler(entrada)) != null) {
+            int requisicao = quadro.requisicao();
+            long inicio = System.nanoTime();
+            Histograma latencia = null;
+            switch (quadro.operacao()) {
+                case ProtocoloBinario.OP_SAIR:
+                    return;
+                case ProtocoloBinario.OP_PRECO: {
+                    latencia = LATENCIA_PRECO;
+                    String ticker = normalizarTicker(ProtocoloBinario.lerTicker(quadro.conteudo()));
+                    long precoPontoFixo = cache.obterPrecoPontoFixo(ticker);
+                    long instante = System.currentTimeMillis();
+                    if (precoPontoFixo == Cache.SEM_PRECO) {
+                        try {
+                            precoPontoFixo = ProtocoloBinario.paraPontoFixo(buscarPrecoCompartilhado(ticker));
+                        } catch (CompletionException | CancellationException e) {
+                            informarFalhaBusca(ticker, e);
+                            long[] ultimo = buscarUltimoPrecoConhecido(ticker);
+                            if (ultimo == null) {
+                                escritor.enviarErro(requisicao, PRECO_INDISPONIVEL);
+                                break;
+                            }
+                            precoPontoFixo = ultimo[0];
+                            instante = ultimo[1];
+                        }
+                    }
+                    DataOutputStream conteudo = escritor.iniciar(ProtocoloBinario.RESP_PRECO, requisicao);
+                    ProtocoloBinario.escreverTicker(conteudo, ticker);
+                    conteudo.writeLong(precoPontoFixo);
+                    conteudo.writeLong(instante);
+                    escritor.enviar();
+                    break;
+                }
+                case ProtocoloBinario.OP_HISTORICO: {
+                    latencia = LATENCIA_HISTORICO;
+                    String ticker = normalizarTicker(ProtocoloBinario.lerTicker(quadro.conteudo()));
+                    List<String> linhas;
+                    try {
+                        linhas = buscarHistoricoRecente(ticker);
+                    } catch (IOException e) {
+                        System.out.println("Erro ao comunicar com o banco de dados: " + e.getMessage());
+                        escritor.enviarErro(requisicao, "Erro ao obter histórico");
+                        break;
+                    }
+                    if (linhas.isEmpty() || linhas.get(0).equals("HISTORICO_NAO_ENCONTRADO")) {
+                        escritor.iniciar(ProtocoloBinario.RESP_NAO_ENCONTRADO, requisicao);
+                        escritor.enviar();
+                    } else if (linhas.get(0).startsWith("ERRO")) {
+                        escritor.enviarErro(requisicao, linhas.get(0));
+                    } else {
+                        try {
+                            ProtocoloBinario.escreverHistorico(
+                                escritor.iniciar(ProtocoloBinario.RESP_HISTORICO, requisicao), ticker, linhas);
+                        } catch (RuntimeException e) {
+                            escritor.enviarErro(requisicao, "Histórico em formato inválido: " + e.getMessage());
+                            break;
+                        }
+                        escritor.enviar();
+                    }
+                    break;
+                }
+                default:
+                    escritor.enviarErro(requisicao, "Comando desconhecido");
+            }
+            if (latencia != null) {
+                latencia.registrarDesde(inicio);
+            }
+        }
+    }
+
+    /**
+     * Passa a renovar em segundo plano os preços das ações mais procuradas antes que
+     * expirem no cache, em requisições em lote à API.
+     *
+     * @param antecedenciaMs     O tempo, em milissegundos, antes da expiração em que um preço
+     *                           é renovado; deve ser menor que o tempo de vida do cache.
+     * @param orcamentoPorMinuto O número máximo de ações renovadas por minuto.
+     * @see RenovadorPrecos
+     */
+    public void iniciarRenovacao(long antecedenciaMs, int orcamentoPorMinuto) {
+        RenovadorPrecos novo = new RenovadorPrecos(this, cache, antecedenciaMs, orcamentoPorMinuto);
+        RenovadorPrecos anterior = renovador;
+        renovador = novo;
+        if (anterior != null) {
+            anterior.parar();
+        }
+        novo.iniciar();
+    }
+
+    /**
+     * Retorna os tickers que têm ao menos um cliente assinante.
+     *
+     * @return Os tickers assinados.
+     */
+    Set<String> tickersAssinados() {
+        return assinaturas.tickersAssinados();
+    }
+
+    /**
+     * Processa os comandos {@code SUBSCRIBE <ticker...>} e {@code UNSUBSCRIBE [ticker...]}.
+     * Ao assinar, o preço de cada ticker presente no cache é enviado em seguida; depois,
+     * cada mudança de preço é enviada na linha {@code ATUALIZACAO <ticker> <preço>}.
+     * {@code UNSUBSCRIBE} sem tickers cancela todas as assinaturas da conexão.
+     *
+     * @param assinante  O assinante da conexão.
+     * @param comando    O comando, {@code SUBSCRIBE} ou {@code UNSUBSCRIBE}.
+     * @param argumentos Os tickers, separados por espaços ou vírgulas.
+     * @return A resposta ao comando.
+     */
+    private String processarAssinatura(Assinaturas.Assinante assinante, String comando, String argumentos) {
+        List<String> tickers = new ArrayList<>();
+        for (String ticker : argumentos.trim().split("[\\s,]+")) {
+            if (!ticker.isEmpty()) {
+                tickers.add(normalizarTicker(ticker));
+            }
+        }
+        if (comando.equals("UNSUBSCRIBE")) {
+            assinaturas.cancelar(assinante, tickers.isEmpty() ? null : tickers);
+            return "ASSINATURA_CANCELADA";
+        }
+        if (tickers.isEmpty()) {
+            return "Comando inválido";
+        }
+        if (!assinaturas.assinar(assinante, tickers)) {
+            return "LIMITE_ASSINATURAS";
+        }
+        for (String ticker : tickers) {
+            long preco = cache.obterPrecoPontoFixo(ticker);
+            if (preco != Cache.SEM_PRECO) {
+                assinante.publicar(ticker, assinaturas.codificar(ticker, preco));
+            }
+        }
+        return "ASSINATURA_OK";
+    }
+
+    /**
+     * Consulta novamente na API os preços das ações informadas, mesmo que ainda estejam no
+     * cache, e atualiza o cache. Ações que já estejam sendo buscadas são ignoradas.
+     *
+     * @param tickers Os tickers das ações a renovar.
+     */
+    void renovarPrecos(Collection<String> tickers) {
+        Map<String, CompletableFuture<String>> novas = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            CompletableFuture<String> nova = new CompletableFuture<>();
+            if (buscasEmAndamento.putIfAbsent(ticker, nova) == null) {
+                prepararBusca(ticker, nova);
+                novas.put(ticker, nova);
+            }
+        }
+        if (!novas.isEmpty()) {
+            buscarPrecosAPI(novas);
+        }
+    }
+
+    /**
+     * Obtém o preço atual de várias ações.
+     * Os preços presentes no cache são usados diretamente; os tickers ausentes são
+     * consultados na API em lote, em vez de uma requisição por ticker. Tickers que já
+     * estejam sendo buscados por outra solicitação aguardam essa busca.
+     *
+     * @param tickers Os tickers das ações.
+     * @return Um mapa, na ordem dos tickers informados, do ticker em maiúsculas para o preço
+     *         atual ou para uma mensagem de erro se não for possível obter o preço.
+     */
+    public Map<String, String> obterPrecos(Collection<String> tickers) {
+        List<String> normalizados = new ArrayList<>(tickers.size());
+        for (String ticker : tickers) {
+            normalizados.add(normalizarTicker(ticker));
+        }
+        tickers = normalizados;
+        Map<String, String> precosCache = new HashMap<>();
+        Map<String, CompletableFuture<String>> aguardadas = new HashMap<>();
+        Map<String, CompletableFuture<String>> novas = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            if (precosCache.containsKey(ticker) || aguardadas.containsKey(ticker)) {
+                continue;
+            }
+            String precoCache = cache.obterPreco(ticker);
+            if (precoCache != null) {
+                precosCache.put(ticker, precoCache);
+                continue;
+            }
+            CompletableFuture<String> nova = new CompletableFuture<>();
+            CompletableFuture<String> emAndamento = buscasEmAndamento.putIfAbsent(ticker, nova);
+            if (emAndamento == null) {
+                prepararBusca(ticker, nova);
+                novas.put(ticker, nova);
+                emAndamento = nova;
+            }
+            aguardadas.put(ticker, emAndamento);
+        }
+
+        if (!novas.isEmpty()) {
+            buscarPrecosAPI(novas);
+        }
+
+        Map<String, String> precos = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            String preco = precosCache.get(ticker);
+            if (preco == null) {
+                try {
+                    preco = aguardadas.get(ticker).join();
+                } catch (CompletionException | CancellationException e) {
+                    preco = responderSemAPI(ticker);
+                }
+            }
+            precos.put(ticker, preco);
+        }
+        return precos;
+    }
+
+    /**
+     * Busca o preço de uma ação na API, compartilhando a busca entre todas as solicitações
+     * concorrentes do mesmo ticker. Apenas a primeira solicitação consulta a API e salva o
+     * preço no banco; as demais aguardam o mesmo resultado, inclusive falhas e tempo esgotado.
+     *
+     * @param ticker O ticker da ação.
+     * @return O preço obtido da API.
+     * @throws CompletionException Se a busca falhar ou exceder o tempo de espera.
+     */
+    private String buscarPrecoCompartilhado(String ticker) {
+        CompletableFuture<String> nova = new CompletableFuture<>();
+        CompletableFuture<String> emAndamento = buscasEmAndamento.putIfAbsent(ticker, nova);
+        if (emAndamento != null) {
+            return emAndamento.join();
+        }
+
+        prepararBusca(ticker, nova);
+        buscarPrecosAPI(Collections.singletonMap(ticker, nova));
+        return nova.join();
+    }
+
+    /**
+     * Define o tempo máximo de uma busca recém-registrada e a remove das buscas em
+     * andamento quando ela terminar.
+     *
+     * @param ticker O ticker da ação.
+     * @param busca  A busca registrada para o ticker.
+     */
+    private void prepararBusca(String ticker, CompletableFuture<String> busca) {
+        busca.orTimeout(TEMPO_MAXIMO_BUSCA_MS, TimeUnit.MILLISECONDS)
+             .whenComplete((preco, erro) -> buscasEmAndamento.remove(ticker, busca));
+    }
+
+    /**
+     * Consulta em lote, sem aguardar a resposta, os preços das buscas informadas. Quando a
+     * API responder, cada busca é concluída com o seu preço e os preços obtidos são enviados
+     * ao banco de dados.
+     *
+     * @param buscas As buscas a concluir, indexadas pelo ticker.
+     */
+    private void buscarPrecosAPI(Map<String, CompletableFuture<String>> buscas) {
+        apiClient.obterCotacoesAsync(buscas.keySet()).whenComplete((obtidos, erro) -> {
+            if (erro != null) {
+                buscas.values().forEach(busca -> busca.completeExceptionally(erro));
+            } else {
+                concluirBuscas(buscas, obtidos);
+            }
+        });
+    }
+
+    /**
+     * Conclui as buscas com os preços obtidos da API e salva esses preços no banco de dados.
+     *
+     * @param buscas  As buscas a concluir, indexadas pelo ticker.
+     * @param obtidos As cotações retornadas pela API, indexadas pelo ticker em maiúsculas.
+     */
+    private void concluirBuscas(Map<String, CompletableFuture<String>> buscas, Map<String, Cotacao> obtidos) {
+        Map<String, String> salvar = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> busca : buscas.entrySet()) {
+            String ticker = busca.getKey();
+            Cotacao cotacao = obtidos.get(ticker);
+            if (cotacao == null) {
+                busca.getValue().completeExceptionally(new IllegalStateException("Nenhum resultado para " + ticker));
+                continue;
+            }
+            registrarPreco(ticker, cotacao.getPreco());
+            String preco = Preco.formatar(cotacao.getPreco());
+            busca.getValue().complete(preco);
+            salvar.put(ticker, preco);
+        }
+        salvarPrecosBanco(salvar);
+    }
+
+    /**
+     * Registra um preço obtido da API no cache e na série temporal da ação.
+     *
+     * @param ticker O ticker da ação.
+     * @param preco  O preço obtido da API, em ponto fixo.
+     */
+    private void registrarPreco(String ticker, long preco) {
+        try {
+            cache.atualizarCache(ticker, preco);
+            serieTemporal.registrar(ticker, System.currentTimeMillis(), preco);
+        } catch (IllegalStateException e) {
+            System.out.println("Preço de " + ticker + " não guardado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva o preço de várias ações no banco de dados. Os comandos são enviados de uma vez
+     * pelo canal com o banco, e as confirmações são verificadas quando chegam, sem bloquear
+     * a thread que chama.
+     *
+     * @param precos Os preços a serem salvos, indexados pelo ticker.
+     */
+    private void salvarPrecosBanco(Map<String, String> precos) {
+        precos.forEach((ticker, preco) ->
+            canalBanco.enviarAssincrono("SALVAR " + ticker + " " + preco, null).whenComplete((resposta, erro) -> {
+                if (erro != null) {
+                    Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                    System.out.println("Erro ao comunicar com o banco de dados: " + causa.getMessage());
+                } else if (!"PRECO_SALVO".equals(resposta.get(0))) {
+                    System.out.println("Erro ao salvar no banco de dados: " + resposta.get(0));
+                }
+            }));
+    }
+
+    /**
+     * Inicia a thread que envia as atualizações de um assinante. Se houver um executor de
+     * conexões definido, ele é usado; caso contrário, é criada uma nova thread.
+     *
+     * @param assinante O assinante cujas atualizações serão enviadas.
+     */
+    private void iniciarEnvioAtualizacoes(Assinaturas.Assinante assinante) {
+        if (executorConexoes != null) {
+            executorConexoes.execute(assinante);
+        } else {
+            Thread thread = new Thread(assinante, "assinante");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * A classe interna ManipuladorCliente é responsável por processar as solicitações
+     * de cada cliente conectado ao servidor.
+     */
+    private class ManipuladorCliente implements Runnable {
+        private Socket clientSocket;
+
+        /**
+         * Construtor da classe ManipuladorCliente.
+         *
+         * @param clientSocket O socket do cliente conectado.
+         */
+        public ManipuladorCliente(Socket clientSocket) {
+            this.clientSocket = clientSocket;
+        }
+
+        /**
+         * Método principal que processa as solicitações do cliente.
+         * As respostas são enviadas na ordem dos comandos; enquanto houver comandos já
+         * recebidos aguardando processamento, as respostas se acumulam e são enviadas juntas.
+         * As atualizações das assinaturas são enviadas por outra thread, entre as respostas;
+         * as duas threads se revezam na saída por um {@link ReentrantLock}, e não por um
+         * monitor, para que uma escrita bloqueada no socket não prenda a thread portadora no
+         * modo de threads virtuais.
+         * <p>
+         * As linhas são lidas do mesmo fluxo com buffer que atende o modo binário depois da
+         * negociação; assim, os quadros enviados logo após {@code BINARIO} não se perdem em
+         * um buffer de texto.
+         */
+        @Override
+        public void run() {
+            conexaoAberta();
+            Assinaturas.Assinante assinante = null;
+            try (
+                BufferedInputStream in = new BufferedInputStream(clientSocket.getInputStream());
+                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), false);
+            ) {
+                OutputStream saidaBytes = clientSocket.getOutputStream();
+                ReentrantLock travaSaida = new ReentrantLock();
+                Consumer<String> saida = linha -> {
+                    travaSaida.lock();
+                    try {
+                        out.println(linha);
+                    } finally {
+                        travaSaida.unlock();
+                    }
+                };
+                String entrada;
+                while ((entrada = ProtocoloBinario.lerLinha(in)) != null) {
+                    String[] partes = entrada.split(" ", 2);
+                    String comando = partes[0].toUpperCase();
+                    if (comando.equals("SUBSCRIBE") || comando.equals("UNSUBSCRIBE")) {
+                        if (assinante == null) {
+                            assinante = new Assinaturas.Assinante(dados -> {
+                                travaSaida.lock();
+                                try {
+                                    out.flush();
+                                    saidaBytes.write(dados);
+                                    saidaBytes.flush();
+                                } finally {
+                                    travaSaida.unlock();
+                                }
+                            });
+                            iniciarEnvioAtualizacoes(assinante);
+                        }
+                        saida.accept(processarAssinatura(assinante, comando, partes.length > 1 ? partes[1] : ""));
+                    } else if (assinante == null && ProtocoloBinario.NEGOCIACAO.equalsIgnoreCase(entrada)) {
+                        out.println(ProtocoloBinario.NEGOCIACAO_OK);
+                        out.flush();
+                        atenderBinario(new DataInputStream(in),
+                            new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream())));
+                        break;
+                    } else if (!processarEntrada(entrada, saida)) {
+                        break;
+                    }
+                    travaSaida.lock();
+                    try {
+                        if (in.available() == 0) {
+                            out.flush();
+                        }
+                    } finally {
+                        travaSaida.unlock();
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
+            } finally {
+                if (assinante != null) {
+                    assinaturas.cancelar(assinante, null);
+                    assinante.encerrar();
+                }
+                try {
+                    clientSocket.close();
+                } catch (IOException e) {
+                    System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
+                }
+                conexaoEncerrada();
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package SOCKET;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import METRICAS.Metricas;
+
+/**
+ * A classe ServerNIO é um modo alternativo do {@link Server} baseado em {@link Selector}.
+ * <p>
+ * Um pequeno número de threads de I/O atende todas as conexões e separa as linhas do
+ * protocolo de texto diretamente dos {@link ByteBuffer}s. O processamento dos comandos,
+ * que pode consultar a API e o banco de dados, é feito em um pool de trabalhadores. Os
+ * comandos de uma mesma conexão são processados em ordem, e as respostas são idênticas
+ * às do modo com uma thread por conexão.
+ */
+class ServerNIO {
+    /** Tamanho máximo de uma linha recebida; conexões que o excedem são encerradas. */
+    private static final int TAMANHO_MAXIMO_LINHA = 64 * 1024;
+    /** Marca o fim da entrada de uma conexão na fila de comandos pendentes. */
+    private static final String FIM_ENTRADA = new String("FIM_ENTRADA");
+
+    private final Server server;
+    private final int porta;
+    private final LacoIO[] lacos;
+    private final ExecutorService trabalhadores;
+    private final Charset charset = Charset.defaultCharset();
+    private final byte[] separadorLinha;
+    private ServerSocketChannel canalServidor;
+    private volatile boolean rodando = true;
+
+    /**
+     * Construtor da classe ServerNIO.
+     *
+     * @param server          O servidor cujos comandos serão atendidos.
+     * @param porta           A porta na qual o servidor escutará.
+     * @param threadsIO       A quantidade de threads de I/O.
+     * @param threadsTrabalho A quantidade de threads que processam os comandos.
+     */
+    ServerNIO(Server server, int porta, int threadsIO, int threadsTrabalho) {
+        if (threadsIO <= 0 || threadsTrabalho <= 0) {
+            throw new IllegalArgumentException("A quantidade de threads deve ser positiva");
+        }
+        this.server = server;
+        this.porta = porta;
+        this.lacos = new LacoIO[threadsIO];
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadsTrabalho, threadsTrabalho, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            tarefa -> new Thread(tarefa, "servidor-nio-trabalhador-" + contador.incrementAndGet()));
+        this.trabalhadores = pool;
+        Metricas.global().medidor("servidor.nio.fila", () -> pool.getQueue().size());
+        this.separadorLinha = System.lineSeparator().getBytes(charset);
+    }
+
+    /**
+     * Inicia as threads de I/O e aceita conexões até que o servidor seja parado.
+     *
+     * @throws IOException Se ocorrer um erro de I/O durante a inicialização do servidor.
+     */
+    void iniciar() throws IOException {
+        canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(new InetSocketAddress(porta));
+        for (int i = 0; i < lacos.length; i++) {
+            lacos[i] = new LacoIO(Selector.open());
+            new Thread(lacos[i], "servidor-nio-io-" + i).start();
+        }
+
+        int proximo = 0;
+        while (rodando) {
+            SocketChannel canal;
+            try {
+                canal = canalServidor.accept();
+            } catch (ClosedChannelException e) {
+                break;
+            }
+            canal.configureBlocking(false);
+            server.conexaoAberta();
+            lacos[proximo].registrar(new Conexao(canal));
+            proximo = (proximo + 1) % lacos.length;
+        }
+    }
+
+    /**
+     * Para de aceitar conexões, encerra as threads de I/O e o pool de trabalhadores.
+     */
+    void parar() {
+        rodando = false;
+        try {
+            if (canalServidor != null) {
+                canalServidor.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao fechar o servidor: " + e.getMessage());
+        }
+        for (LacoIO laco : lacos) {
+            if (laco != null) {
+                laco.parar();
+            }
+        }
+        trabalhadores.shutdown();
+    }
+
+    /**
+     * Laço de eventos de uma thread de I/O. Cada conexão pertence a um único laço,
+     * que é o único a ler e escrever no seu canal.
+     */
+    private class LacoIO implements Runnable {
+        private final Selector selector;
+        private final Queue<Conexao> novas = new ConcurrentLinkedQueue<>();
+        private final Queue<Conexao> comSaida = new ConcurrentLinkedQueue<>();
+
+        LacoIO(Selector selector) {
+            this.selector = selector;
+        }
+
+        void registrar(Conexao conexao) {
+            conexao.laco = this;
+            novas.offer(conexao);
+            selector.wakeup();
+        }
+
+        void solicitarEscrita(Conexao conexao) {
+            comSaida.offer(conexao);
+            selector.wakeup();
+        }
+
+        void parar() {
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (rodando) {
+                    selector.select();
+                    registrarNovas();
+                    escreverPendentes();
+
+                    Iterator<SelectionKey> chaves = selector.selectedKeys().iterator();
+                    while (chaves.hasNext()) {
+                        SelectionKey chave = chaves.next();
+                        chaves.remove();
+                        Conexao conexao = (Conexao) chave.attachment();
+                        try {
+                            if (chave.isValid() && chave.isReadable()) {
+                                conexao.ler();
+                            }
+                            if (chave.isValid() && chave.isWritable()) {
+                                conexao.escrever();
+                            }
+                        } catch (IOException e) {
+                            System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
+                            conexao.fechar();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (rodando) {
+                    System.out.println("Erro no laço de I/O: " + e.getMessage());
+                }
+            } finally {
+                fecharSelector();
+            }
+        }
+
+        private void fecharSelector() {
+            for (SelectionKey chave : selector.keys()) {
+                ((Conexao) chave.attachment()).fechar();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar laço de I/O: " + e.getMessage());
+            }
+        }
+
+        private void registrarNovas() {
+            Conexao conexao;
+            while ((conexao = novas.poll()) != null) {
+                try {
+                    conexao.chave = conexao.canal.register(selector, SelectionKey.OP_READ, conexao);
+                } catch (ClosedChannelException e) {
+                    conexao.fechar();
+                }
+            }
+        }
+
+        private void escreverPendentes() {
+            Conexao conexao;
+            while ((conexao = comSaida.poll()) != null) {
+                try {
+                    conexao.escrever();
+                } catch (IOException e) {
+                    System.out.println("Erro ao comunicar com o cliente: " + e.getMessage());
+                    conexao.fechar();
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado de uma conexão: a linha parcialmente recebida, os comandos aguardando
+     * processamento e as respostas aguardando envio.
+     */
+    private class Conexao {
+        private final SocketChannel canal;
+        private final ByteBuffer leitura = ByteBuffer.allocate(8 * 1024);
+        private byte[] linha = new byte[256];
+        private int tamanhoLinha;
+        private boolean ultimoFoiCR;
+
+        private final Queue<String> pendentes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean emProcessamento = new AtomicBoolean();
+        private final Queue<ByteBuffer> saida = new ConcurrentLinkedQueue<>();
+        private volatile boolean encerrar;
+
+        private LacoIO laco;
+        private SelectionKey chave;
+
+        Conexao(SocketChannel canal) {
+            this.canal = canal;
+        }
+
+        /**
+         * Lê os bytes disponíveis e separa as linhas completas, com as mesmas regras de
+         * {@link java.io.BufferedReader#readLine()}: {@code \n}, {@code \r} ou {@code \r\n}.
+         */
+        void ler() throws IOException {
+            int lidos = canal.read(leitura);
+            if (lidos < 0) {
+                if (tamanhoLinha > 0) {
+                    pendentes.offer(new String(linha, 0, tamanhoLinha, charset));
+                    tamanhoLinha = 0;
+                }
+                pendentes.offer(FIM_ENTRADA);
+                chave.interestOps(chave.interestOps() & ~SelectionKey.OP_READ);
+                agendarProcessamento();
+                return;
+            }
+
+            leitura.flip();
+            boolean novaLinha = false;
+            while (leitura.hasRemaining()) {
+                byte b = leitura.get();
+                if (b == '\n' && ultimoFoiCR) {
+                    ultimoFoiCR = false;
+                    continue;
+                }
+                ultimoFoiCR = b == '\r';
+                if (b == '\n' || b == '\r') {
+                    pendentes.offer(new String(linha, 0, tamanhoLinha, charset));
+                    tamanhoLinha = 0;
+                    novaLinha = true;
+                    continue;
+                }
+                if (tamanhoLinha == linha.length) {
+                    if (linha.length >= TAMANHO_MAXIMO_LINHA) {
+                        System.out.println("Linha excede o tamanho máximo; encerrando conexão.");
+                        fechar();
+                        return;
+                    }
+                    linha = Arrays.copyOf(linha, Math.min(linha.length * 2, TAMANHO_MAXIMO_LINHA));
+                }
+                linha[tamanhoLinha++] = b;
+            }
+            leitura.clear();
+            if (novaLinha) {
+                agendarProcessamento();
+            }
+        }
+
+        /**
+         * Agenda o processamento dos comandos pendentes, caso ainda não esteja agendado.
+         * Apenas um trabalhador processa a conexão por vez, o que mantém as respostas em ordem.
+         */
+        void agendarProcessamento() {
+            if (emProcessamento.compareAndSet(false, true)) {
+                trabalhadores.execute(this::processarPendentes);
+            }
+        }
+
+        private void processarPendentes() {
+            String entrada;
+            while (!encerrar && (entrada = pendentes.poll()) != null) {
+                String resposta = entrada == FIM_ENTRADA ? null : server.processarEntrada(entrada);
+                if (resposta == null) {
+                    encerrar = true;
+                    pendentes.clear();
+                    break;
+                }
+                byte[] corpo = resposta.getBytes(charset);
+                ByteBuffer dados = ByteBuffer.allocate(corpo.length + separadorLinha.length);
+                dados.put(corpo).put(separadorLinha).flip();
+                saida.offer(dados);
+                laco.solicitarEscrita(this);
+            }
+            emProcessamento.set(false);
+            if (encerrar) {
+                laco.solicitarEscrita(this);
+            } else if (!pendentes.isEmpty()) {
+                agendarProcessamento();
+            }
+        }
+
+        /**
+         * Envia as respostas pendentes. Chamado apenas pela thread de I/O da conexão.
+         */
+        void escrever() throws IOException {
+            if (chave == null || !chave.isValid()) {
+                return;
+            }
+            ByteBuffer dados;
+            while ((dados = saida.peek()) != null) {
+                canal.write(dados);
+                if (dados.hasRemaining()) {
+                    chave.interestOps(chave.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                saida.poll();
+            }
+            chave.interestOps(chave.interestOps() & ~SelectionKey.OP_WRITE);
+            if (encerrar && !emProcessamento.get()) {
+                fechar();
+            }
+        }
+
+        void fechar() {
+            encerrar = true;
+            pendentes.clear();
+            if (!canal.isOpen()) {
+                return;
+            }
+            server.conexaoEncerrada();
+            try {
+                if (chave != null) {
+                    chave.cancel();
+                }
+                canal.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar socket do cliente: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package SOCKET;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Leitura e gravação do snapshot do {@link Cache} em disco.
+ * <p>
+ * O arquivo tem o formato:
+ * <pre>
+ *   int   magico      {@code "CCH1"}
+ *   int   quantidade  quantidade de registros
+ *   long  gravadoEm   milissegundos desde a época Unix
+ *   registros:
+ *     byte  tamanho   tamanho do ticker
+ *     ...   ticker    caracteres UTF-8
+ *     long  preco     ponto fixo (veja {@link API.Preco})
+ *     long  obtidoEm  instante em que o preço foi obtido
+ *     long  frequencia frequência de acesso da entrada
+ *   int   crc         CRC32 de todos os bytes anteriores
+ * </pre>
+ * O snapshot é gravado em um arquivo temporário no mesmo diretório, sincronizado com o
+ * disco e então renomeado sobre o anterior; assim, uma queda durante a gravação mantém o
+ * snapshot anterior intacto. Na leitura, o arquivo é mapeado na memória, e um snapshot com
+ * CRC inválido é rejeitado por inteiro.
+ */
+final class SnapshotCache {
+    private static final int MAGICO = 0x43434831;
+    private static final int TAMANHO_CABECALHO = 2 * Integer.BYTES + Long.BYTES;
+    private static final int TAMANHO_MAXIMO_TICKER = 255;
+
+    private SnapshotCache() {
+    }
+
+    /**
+     * Grava o snapshot de forma atômica, substituindo o anterior.
+     *
+     * @param arquivo   O arquivo do snapshot.
+     * @param registros As entradas do cache.
+     * @throws IOException Se não for possível gravar o snapshot.
+     */
+    static void gravar(Path arquivo, List<Registro> registros) throws IOException {
+        List<byte[]> tickers = new ArrayList<>(registros.size());
+        int tamanho = TAMANHO_CABECALHO + Integer.BYTES;
+        for (Registro registro : registros) {
+            byte[] ticker = registro.ticker.getBytes(StandardCharsets.UTF_8);
+            tickers.add(ticker);
+            if (ticker.length <= TAMANHO_MAXIMO_TICKER) {
+                tamanho += 1 + ticker.length + 3 * Long.BYTES;
+            }
+        }
+
+        ByteBuffer conteudo = ByteBuffer.allocate(tamanho);
+        conteudo.putInt(MAGICO).putInt(0).putLong(System.currentTimeMillis());
+        int quantidade = 0;
+        for (int i = 0; i < registros.size(); i++) {
+            byte[] ticker = tickers.get(i);
+            if (ticker.length > TAMANHO_MAXIMO_TICKER) {
+                continue;
+            }
+            Registro registro = registros.get(i);
+            conteudo.put((byte) ticker.length).put(ticker)
+                .putLong(registro.preco)
+                .putLong(registro.obtidoEm)
+                .putLong(registro.frequencia);
+            quantidade++;
+        }
+        conteudo.putInt(Integer.BYTES, quantidade);
+        CRC32 crc = new CRC32();
+        crc.update(conteudo.array(), 0, conteudo.position());
+        conteudo.putInt((int) crc.getValue()).flip();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (conteudo.hasRemaining()) {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lê o snapshot, mapeando o arquivo na memória.
+     *
+     * @param arquivo O arquivo do snapshot.
+     * @return As entradas gravadas.
+     * @throws IOException Se o arquivo não puder ser lido ou não for um snapshot válido.
+     */
+    static List<Registro> ler(Path arquivo) throws IOException {
+        MappedByteBuffer conteudo;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO + Integer.BYTES || canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Tamanho inválido para um snapshot do cache: " + arquivo);
+            }
+            conteudo = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        int posicaoCrc = conteudo.limit() - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(conteudo.duplicate().limit(posicaoCrc));
+        if (conteudo.getInt(0) != MAGICO || (int) crc.getValue() != conteudo.getInt(posicaoCrc)) {
+            throw new IOException("Snapshot do cache inválido: " + arquivo);
+        }
+
+        int quantidade = conteudo.getInt(Integer.BYTES);
+        List<Registro> registros = new ArrayList<>(quantidade);
+        conteudo.position(TAMANHO_CABECALHO);
+        for (int i = 0; i < quantidade; i++) {
+            byte[] ticker = new byte[Byte.toUnsignedInt(conteudo.get())];
+            conteudo.get(ticker);
+            registros.add(new Registro(new String(ticker, StandardCharsets.UTF_8),
+                conteudo.getLong(), conteudo.getLong(), conteudo.getLong()));
+        }
+        return registros;
+    }
+
+    /**
+     * Uma entrada do cache no snapshot.
+     */
+    static final class Registro {
+        final String ticker;
+        final long preco;
+        final long obtidoEm;
+        final long frequencia;
+
+        Registro(String ticker, long preco, long obtidoEm, long frequencia) {
+            this.ticker = ticker;
+            this.preco = preco;
+            this.obtidoEm = obtidoEm;
+            this.frequencia = frequencia;
+        }
+    }
+}
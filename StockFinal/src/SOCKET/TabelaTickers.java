@@ -0,0 +1,115 @@
+package SOCKET;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A classe TabelaTickers atribui a cada ticker um identificador inteiro, sequencial a partir
+ * de zero, e guarda uma única instância do texto de cada ticker.
+ * <p>
+ * Com os identificadores, as estruturas por ação ({@link Cache}, {@link SerieTemporal}) são
+ * arrays indexados pelo ticker, sem tabelas de hash nem objetos de chave por entrada. Os
+ * identificadores nunca são reaproveitados; por isso só devem ser atribuídos a tickers que a
+ * API reconheceu, e a tabela tem uma capacidade máxima.
+ */
+public class TabelaTickers {
+    /** Número máximo padrão de tickers na tabela. */
+    public static final int CAPACIDADE_PADRAO = 1 << 16;
+    /** Identificador devolvido por {@link #buscar(String)} para tickers ausentes. */
+    public static final int AUSENTE = -1;
+
+    private final ConcurrentMap<String, Integer> identificadores = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> simbolos;
+    private int proximo;
+
+    /**
+     * Construtor da classe TabelaTickers, com a capacidade padrão.
+     */
+    public TabelaTickers() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Construtor da classe TabelaTickers.
+     *
+     * @param capacidade O número máximo de tickers na tabela.
+     */
+    public TabelaTickers(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva");
+        }
+        this.simbolos = new AtomicReferenceArray<>(capacidade);
+    }
+
+    /**
+     * Retorna o identificador de um ticker, atribuindo um novo se o ticker ainda não estiver
+     * na tabela.
+     *
+     * @param ticker O código da ação.
+     * @return O identificador do ticker.
+     * @throws IllegalStateException Se a tabela estiver cheia.
+     */
+    public int id(String ticker) {
+        Integer id = identificadores.get(ticker);
+        return id != null ? id : registrar(ticker);
+    }
+
+    private synchronized int registrar(String ticker) {
+        Integer id = identificadores.get(ticker);
+        if (id != null) {
+            return id;
+        }
+        if (proximo == simbolos.length()) {
+            throw new IllegalStateException("Tabela de tickers cheia (" + proximo + " tickers)");
+        }
+        simbolos.set(proximo, ticker);
+        identificadores.put(ticker, proximo);
+        return proximo++;
+    }
+
+    /**
+     * Retorna o identificador de um ticker, sem incluí-lo na tabela.
+     *
+     * @param ticker O código da ação.
+     * @return O identificador do ticker, ou {@link #AUSENTE} se ele não estiver na tabela.
+     */
+    public int buscar(String ticker) {
+        Integer id = identificadores.get(ticker);
+        return id != null ? id : AUSENTE;
+    }
+
+    /**
+     * Retorna o ticker de um identificador. A instância devolvida é sempre a mesma para o
+     * mesmo identificador.
+     *
+     * @param id O identificador.
+     * @return O código da ação.
+     * @throws IndexOutOfBoundsException Se o identificador não tiver sido atribuído.
+     */
+    public String simbolo(int id) {
+        String simbolo = id >= 0 && id < simbolos.length() ? simbolos.get(id) : null;
+        if (simbolo == null) {
+            throw new IndexOutOfBoundsException("Identificador de ticker não atribuído: " + id);
+        }
+        return simbolo;
+    }
+
+    /**
+     * Retorna o número máximo de tickers na tabela.
+     *
+     * @return A capacidade da tabela.
+     */
+    public int capacidade() {
+        return simbolos.length();
+    }
+
+    /**
+     * Retorna o número de tickers na tabela.
+     *
+     * @return O número de tickers.
+     */
+    public int tamanho() {
+        return identificadores.size();
+    }
+}
@@ -0,0 +1,80 @@
+package SOCKET;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Um array de valores indexado pelo identificador de {@link TabelaTickers}, dividido em
+ * páginas criadas à medida que os identificadores são usados. Leituras e escritas não usam
+ * bloqueio.
+ *
+ * @param <T> O tipo dos valores.
+ */
+final class VetorPorTicker<T> {
+    private static final int BITS_PAGINA = 10;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> paginas;
+
+    /**
+     * Construtor da classe VetorPorTicker.
+     *
+     * @param capacidade O maior identificador aceito mais um, normalmente a capacidade da tabela de tickers.
+     */
+    VetorPorTicker(int capacidade) {
+        this.paginas = new AtomicReferenceArray<>((capacidade + TAMANHO_PAGINA - 1) >>> BITS_PAGINA);
+    }
+
+    /**
+     * Retorna o valor de um identificador.
+     *
+     * @param id O identificador.
+     * @return O valor, ou {@code null} se não houver.
+     */
+    T obter(int id) {
+        AtomicReferenceArray<T> pagina = paginas.get(id >>> BITS_PAGINA);
+        return pagina != null ? pagina.get(id & (TAMANHO_PAGINA - 1)) : null;
+    }
+
+    /**
+     * Troca o valor de um identificador se o valor atual for o esperado.
+     *
+     * @param id       O identificador.
+     * @param esperado O valor atual esperado, ou {@code null}.
+     * @param novo     O novo valor, ou {@code null} para remover.
+     * @return {@code true} se o valor foi trocado.
+     */
+    boolean trocar(int id, T esperado, T novo) {
+        return pagina(id).compareAndSet(id & (TAMANHO_PAGINA - 1), esperado, novo);
+    }
+
+    /**
+     * Passa cada valor presente ao consumidor, na ordem dos identificadores.
+     *
+     * @param consumidor O consumidor dos valores.
+     */
+    void paraCada(Consumer<T> consumidor) {
+        for (int p = 0; p < paginas.length(); p++) {
+            AtomicReferenceArray<T> pagina = paginas.get(p);
+            if (pagina == null) {
+                continue;
+            }
+            for (int i = 0; i < TAMANHO_PAGINA; i++) {
+                T valor = pagina.get(i);
+                if (valor != null) {
+                    consumidor.accept(valor);
+                }
+            }
+        }
+    }
+
+    private AtomicReferenceArray<T> pagina(int id) {
+        int indice = id >>> BITS_PAGINA;
+        AtomicReferenceArray<T> pagina = paginas.get(indice);
+        if (pagina == null) {
+            paginas.compareAndSet(indice, null, new AtomicReferenceArray<>(TAMANHO_PAGINA));
+            pagina = paginas.get(indice);
+        }
+        return pagina;
+    }
+}